@@ -0,0 +1,92 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.Tree;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Update of the accessors in a class the way the generator does it by
+ * default, see {@code PropertyMethodBuilder.mergePropMethods}: existing
+ * accessors are compared to the expected ones, stale ones are replaced and
+ * missing ones inserted. {@link #replaceAccessors} measures the full
+ * rewrite used when {@code minimalRewrite} is off, on a fresh copy of the
+ * members. The accessors themselves are not built and the class tree is not
+ * edited, see {@link SyntheticBeans#createMergeOnlyBuilder}.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemberMergeBenchmark {
+
+    @Param({"10", "1000", "50000"})
+    public int members;
+
+    @Param({"1", "100", "2000"})
+    public int properties;
+
+    @Param({"CURRENT", "STALE", "MISSING"})
+    public String accessors;
+
+    private SyntheticBeans beans;
+
+    @Setup
+    public void setUp() throws IOException {
+        beans = SyntheticBeans.create(members, properties, SyntheticBeans.Accessors.valueOf(accessors));
+    }
+
+    @Benchmark
+    public ClassTree mergeAccessors() {
+        ClassTree classTree = beans.getClassTree();
+        return beans.createMergeOnlyBuilder(null)
+                .mergePropMethods(null, classTree, classTree.getMembers().size() / 2);
+    }
+
+    @Benchmark
+    public List<Tree> replaceAccessors() {
+        List<Tree> list = beans.copyMembers();
+        beans.createMergeOnlyBuilder(list).replacePropMethods(list.size() / 2);
+        return list;
+    }
+
+}
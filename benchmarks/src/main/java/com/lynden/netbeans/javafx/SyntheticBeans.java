@@ -0,0 +1,231 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.Trees;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.netbeans.api.java.source.CompilationInfo;
+
+/**
+ * Synthetic JavaFx beans for the benchmarks, parsed with the javac of the
+ * running JDK so no IDE is needed.
+ *
+ * A bean with {@code members} members and {@code properties} property fields
+ * holds the fields, their setter, getter and property method as described by
+ * {@link Accessors}, and enough plain methods to reach the member count.
+ *
+ */
+final class SyntheticBeans {
+
+    /** The accessors a bean declares. */
+    enum Accessors {
+        /** Every accessor, as the generator would write it. */
+        CURRENT,
+        /** Every accessor, the getters having a different body. */
+        STALE,
+        /** No accessor at all. */
+        MISSING
+    }
+
+    private final String source;
+    private final CompilationUnitTree compilationUnit;
+    private final ClassTree classTree;
+    private final SourcePositions sourcePositions;
+    private final List<PropertyField> fields;
+
+    private SyntheticBeans(String source, CompilationUnitTree compilationUnit, ClassTree classTree,
+            SourcePositions sourcePositions, List<PropertyField> fields) {
+        this.source = source;
+        this.compilationUnit = compilationUnit;
+        this.classTree = classTree;
+        this.sourcePositions = sourcePositions;
+        this.fields = fields;
+    }
+
+    static SyntheticBeans create(int members, int properties) throws IOException {
+        return create(members, properties, Accessors.CURRENT);
+    }
+
+    static SyntheticBeans create(int members, int properties, Accessors accessors) throws IOException {
+        int propertyCount = Math.max(1, Math.min(properties, members / 4));
+        String source = source(members, propertyCount, accessors);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavacTask task = (JavacTask) compiler.getTask(null, null, null,
+                Collections.singletonList("-proc:none"), null, // NOI18N
+                Collections.singletonList(new StringSource(source)));
+        CompilationUnitTree cu = task.parse().iterator().next();
+        ClassTree classTree = (ClassTree) cu.getTypeDecls().get(0);
+
+        List<PropertyField> fields = new ArrayList<>(propertyCount);
+        for (int i = 0; i < propertyCount; i++) {
+            fields.add(new PropertyField(null, "prop" + i, // NOI18N
+                    "javafx.beans.property.StringProperty", "java.lang.String")); // NOI18N
+        }
+        return new SyntheticBeans(source, cu, classTree, Trees.instance(task).getSourcePositions(), fields);
+    }
+
+    private static String source(int members, int properties, Accessors accessors) {
+        StringBuilder sb = new StringBuilder(members * 64);
+        sb.append("package bench;\n\n")
+                .append("import javafx.beans.property.*;\n\n")
+                .append("public class Bean {\n");
+        int count = 0;
+        for (int i = 0; i < properties; i++, count++) {
+            sb.append("    private final StringProperty prop").append(i)
+                    .append(" = new SimpleStringProperty();\n");
+        }
+        String getter = accessors == Accessors.STALE ? ".getValue();\n    }\n" : ".get();\n    }\n";
+        for (int i = 0; accessors != Accessors.MISSING && i < properties; i++, count += 3) {
+            sb.append("    public final void setProp").append(i).append("(String value) {\n")
+                    .append("        prop").append(i).append(".set(value);\n    }\n")
+                    .append("    public final String getProp").append(i).append("() {\n")
+                    .append("        return prop").append(i).append(getter)
+                    .append("    public final StringProperty prop").append(i).append("Property() {\n")
+                    .append("        return prop").append(i).append(";\n    }\n");
+        }
+        for (int i = 0; count < members; i++, count++) {
+            sb.append("    public int method").append(i).append("() {\n")
+                    .append("        return ").append(i).append(";\n    }\n");
+        }
+        return sb.append("}\n").toString();
+    }
+
+    CompilationUnitTree getCompilationUnit() {
+        return compilationUnit;
+    }
+
+    ClassTree getClassTree() {
+        return classTree;
+    }
+
+    SourcePositions getSourcePositions() {
+        return sourcePositions;
+    }
+
+    List<PropertyField> getFields() {
+        return fields;
+    }
+
+    /** A copy of the members, to be modified by a benchmark. */
+    List<Tree> copyMembers() {
+        return new ArrayList<Tree>(classTree.getMembers());
+    }
+
+    /** The start offset of the member in the middle of the class. */
+    int getMiddleMemberOffset() {
+        List<? extends Tree> members = classTree.getMembers();
+        return (int) sourcePositions.getStartPosition(compilationUnit, members.get(members.size() / 2));
+    }
+
+    /** A method of the bean, standing for every generated accessor. */
+    MethodTree getPrebuiltAccessor() {
+        for (Tree member : classTree.getMembers()) {
+            if (member.getKind() == Tree.Kind.METHOD) {
+                return (MethodTree) member;
+            }
+        }
+        throw new IllegalStateException("bean without methods"); // NOI18N
+    }
+
+    /**
+     * A builder for merge-only benchmarks. Building the accessors and editing
+     * the class tree take the TreeMaker of a working copy, which doesn't exist
+     * outside of the IDE, so the builder has none: its create methods all
+     * return {@link #getPrebuiltAccessor()} and its tree edits return the
+     * class unchanged. Members are read from the parsed source instead of a
+     * compilation. Benchmarks using it measure how the accessors are
+     * compared, found, removed and inserted, never how they are built.
+     *
+     * @param members the member list {@code replacePropMethods} rewrites,
+     * {@code null} for {@code mergePropMethods}
+     */
+    PropertyMethodBuilder createMergeOnlyBuilder(List<Tree> members) {
+        final MethodTree method = getPrebuiltAccessor();
+        return new PropertyMethodBuilder(null, members, fields) {
+            @Override
+            protected String getMemberSource(CompilationInfo info, Tree member) {
+                return AccessorConventions.stripWhitespace(source.substring(
+                        (int) sourcePositions.getStartPosition(compilationUnit, member),
+                        (int) sourcePositions.getEndPosition(compilationUnit, member)));
+            }
+
+            @Override
+            protected ClassTree insertMember(ClassTree classTree, int index, Tree member) {
+                return classTree;
+            }
+
+            @Override
+            protected ClassTree removeMember(ClassTree classTree, Tree member) {
+                return classTree;
+            }
+
+            @Override
+            protected MethodTree createGetMethod(PropertyField field) {
+                return method;
+            }
+
+            @Override
+            protected MethodTree createSetMethod(PropertyField field) {
+                return method;
+            }
+
+            @Override
+            protected MethodTree createPropertyMethod(PropertyField field) {
+                return method;
+            }
+        };
+    }
+
+    private static class StringSource extends SimpleJavaFileObject {
+
+        private final String source;
+
+        StringSource(String source) {
+            super(URI.create("string:///bench/Bean.java"), JavaFileObject.Kind.SOURCE); // NOI18N
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Simplification of the type strings of the property fields. The public entry
+ * point keeps its results in an LRU cache and every call here passes the same
+ * type, so {@link #removePackagesCached} measures a cache hit, while
+ * {@link #simplify} measures the scan a cache miss does.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypeNameBenchmark {
+
+    private static final Map<String, String> TYPES = new HashMap<>();
+
+    static {
+        TYPES.put("SIMPLE", "javafx.beans.property.StringProperty");
+        TYPES.put("GENERIC", "javafx.beans.property.ObjectProperty<java.time.LocalDate>");
+        TYPES.put("NESTED", "javafx.beans.property.MapProperty<java.lang.String, java.util.List<java.math.BigDecimal>>");
+        TYPES.put("WILDCARD", "javafx.beans.property.ObjectProperty<java.util.List<? extends java.lang.Number>>");
+        TYPES.put("ARRAY", "javafx.beans.property.ObjectProperty<java.lang.String[]>");
+    }
+
+    @Param({"SIMPLE", "GENERIC", "NESTED", "WILDCARD", "ARRAY"})
+    public String kind;
+
+    private String type;
+
+    @Setup
+    public void setUp() {
+        type = TYPES.get(kind);
+    }
+
+    @Benchmark
+    public String removePackagesCached() {
+        return PackageHelper.removePackagesFromGenericsType(type);
+    }
+
+    @Benchmark
+    public String simplify() {
+        return PackageHelper.simplify(type);
+    }
+
+}
@@ -0,0 +1,301 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx.headless;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.Trees;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+/**
+ * Generates or verifies the JavaFx property accessors of a source tree
+ * without NetBeans, with the rules of
+ * {@link com.lynden.netbeans.javafx.AccessorConventions}. The sources are only
+ * parsed, never attributed, so no classpath is needed; see
+ * {@link PropertyTypes} for how property fields are recognized.
+ * <pre>
+ * java -jar accessor-generator.jar [--verify] [--threads N] &lt;dir or file&gt;...
+ * </pre>
+ * Exits with 1 in verify mode if any accessor is missing, stale or left over,
+ * with 2 on a usage or I/O error, or in verify mode if a file could not be
+ * parsed and so was not verified.
+ *
+ */
+public final class HeadlessGenerator {
+
+    /** Files parsed by a single javac task. */
+    static final int FILES_PER_CHUNK = 64;
+
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_PROBLEMS = 1;
+    private static final int EXIT_ERROR = 2;
+
+    private final boolean verify;
+    private final int threads;
+    private final PrintStream out;
+
+    HeadlessGenerator(boolean verify, int threads, PrintStream out) {
+        this.verify = verify;
+        this.threads = threads;
+        this.out = out;
+    }
+
+    public static void main(String[] args) {
+        boolean verify = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> roots = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--verify".equals(args[i])) { // NOI18N
+                verify = true;
+            } else if ("--threads".equals(args[i]) && i + 1 < args.length) { // NOI18N
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            } else if (args[i].startsWith("--")) { // NOI18N
+                usage();
+                System.exit(EXIT_ERROR);
+            } else {
+                roots.add(Paths.get(args[i]));
+            }
+        }
+        if (roots.isEmpty()) {
+            usage();
+            System.exit(EXIT_ERROR);
+        }
+        int status;
+        try {
+            status = new HeadlessGenerator(verify, threads, System.out).run(roots);
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            status = EXIT_ERROR;
+        }
+        System.exit(status);
+    }
+
+    private static void usage() {
+        System.err.println("Usage: java -jar accessor-generator.jar [--verify] [--threads N] <dir or file>..."); // NOI18N
+    }
+
+    /**
+     * Processes the Java files under the given roots.
+     *
+     * @return the exit status
+     */
+    int run(List<Path> roots) throws IOException {
+        long start = System.nanoTime();
+        List<Path> files = collectJavaFiles(roots);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<FileResult> results = new ArrayList<>(files.size());
+        try {
+            List<Future<List<FileResult>>> futures = new ArrayList<>();
+            for (int i = 0; i < files.size(); i += FILES_PER_CHUNK) {
+                final List<Path> chunk = files.subList(i, Math.min(i + FILES_PER_CHUNK, files.size()));
+                futures.add(executor.submit(new Callable<List<FileResult>>() {
+                    @Override
+                    public List<FileResult> call() throws IOException {
+                        return processChunk(chunk);
+                    }
+                }));
+            }
+            for (Future<List<FileResult>> future : futures) {
+                results.addAll(future.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", ex); // NOI18N
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof IOException
+                    ? (IOException) ex.getCause()
+                    : new IOException(ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int problems = 0;
+        int changed = 0;
+        int skipped = 0;
+        for (FileResult result : results) {
+            if (result.error != null) {
+                System.err.println(result.path + ": skipped, " + result.error); // NOI18N
+                skipped++;
+            }
+            for (String problem : result.problems) {
+                out.println(result.path + ":" + problem);
+            }
+            problems += result.problems.size();
+            if (result.changed) {
+                changed++;
+            }
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (verify) {
+            out.println(problems + " accessor problems in " + files.size() + " files, " // NOI18N
+                    + skipped + " skipped, " + elapsed + " ms"); // NOI18N
+            if (skipped > 0) {
+                return EXIT_ERROR;
+            }
+            return problems == 0 ? EXIT_OK : EXIT_PROBLEMS;
+        }
+        out.println("Updated " + changed + " of " + files.size() + " files in " + elapsed + " ms"); // NOI18N
+        return EXIT_OK;
+    }
+
+    private static List<Path> collectJavaFiles(List<Path> roots) throws IOException {
+        Set<Path> files = new HashSet<>();
+        for (Path root : roots) {
+            if (Files.isDirectory(root)) {
+                try (Stream<Path> stream = Files.walk(root)) {
+                    for (Iterator<Path> it = stream.iterator(); it.hasNext();) {
+                        Path path = it.next();
+                        if (path.toString().endsWith(".java") && Files.isRegularFile(path)) { // NOI18N
+                            files.add(path);
+                        }
+                    }
+                }
+            } else if (Files.isRegularFile(root)) {
+                files.add(root);
+            } else {
+                throw new IOException(root + " does not exist"); // NOI18N
+            }
+        }
+        List<Path> sorted = new ArrayList<>(files);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Parses the files of a chunk with one javac task, skipping the files
+     * which can't contain a property field, and checks or rewrites them.
+     */
+    private List<FileResult> processChunk(List<Path> chunk) throws IOException {
+        List<FileResult> results = new ArrayList<>(chunk.size());
+        Map<URI, SourceText> sources = new LinkedHashMap<>();
+        for (Path path : chunk) {
+            String text = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+            if (text.contains(PropertyTypes.PROPERTY_PACKAGE)) {
+                SourceText source = new SourceText(path, text);
+                sources.put(source.toUri(), source);
+            }
+        }
+        if (sources.isEmpty()) {
+            return results;
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IOException("no Java compiler, a JDK is required"); // NOI18N
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavacTask task = (JavacTask) compiler.getTask(null, null, diagnostics,
+                Collections.singletonList("-proc:none"), null, sources.values()); // NOI18N
+        Iterable<? extends CompilationUnitTree> units = task.parse();
+        SourcePositions sp = Trees.instance(task).getSourcePositions();
+
+        // javac wraps the file objects, so they are matched by URI
+        Set<URI> broken = new HashSet<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR && diagnostic.getSource() != null) {
+                broken.add(diagnostic.getSource().toUri());
+            }
+        }
+
+        for (CompilationUnitTree cu : units) {
+            SourceText source = sources.get(cu.getSourceFile().toUri());
+            FileResult result = new FileResult(source.path);
+            results.add(result);
+            if (broken.contains(source.toUri())) {
+                result.error = "it does not parse"; // NOI18N
+                continue;
+            }
+            SourceFileProcessor processor = new SourceFileProcessor(cu, sp, source.text);
+            processor.process();
+            result.problems = processor.getProblems();
+            if (!verify) {
+                String updated = processor.getUpdatedText();
+                if (updated != null) {
+                    Files.write(source.path, updated.getBytes(StandardCharsets.UTF_8));
+                    result.changed = true;
+                }
+            }
+        }
+        return results;
+    }
+
+    private static class FileResult {
+
+        private final Path path;
+        private List<String> problems = Collections.emptyList();
+        private String error;
+        private boolean changed;
+
+        FileResult(Path path) {
+            this.path = path;
+        }
+    }
+
+    private static class SourceText extends SimpleJavaFileObject {
+
+        private final Path path;
+        private final String text;
+
+        SourceText(Path path, String text) {
+            super(path.toAbsolutePath().toUri(), JavaFileObject.Kind.SOURCE);
+            this.path = path;
+            this.text = text;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return text;
+        }
+    }
+
+}
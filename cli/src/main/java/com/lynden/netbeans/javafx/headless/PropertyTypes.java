@@ -0,0 +1,162 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx.headless;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ImportTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.ParameterizedTypeTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.SourcePositions;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recognizes JavaFx property fields from their declared type alone, since the
+ * headless generator only parses the sources. A type is recognized by its
+ * simple name, and only if it is qualified with or imported from
+ * {@code javafx.beans.property}.
+ *
+ */
+final class PropertyTypes {
+
+    static final String PROPERTY_PACKAGE = "javafx.beans.property"; // NOI18N
+    static final String COLLECTIONS_PACKAGE = "javafx.collections"; // NOI18N
+
+    private static final String SIMPLE = "Simple"; // NOI18N
+
+    /** Property type name without the {@code Property} suffix to value type. */
+    private static final Map<String, String> VALUE_TYPES;
+
+    static {
+        VALUE_TYPES = new HashMap<>();
+        VALUE_TYPES.put("String", "String");
+        VALUE_TYPES.put("Integer", "int");
+        VALUE_TYPES.put("Long", "long");
+        VALUE_TYPES.put("Float", "float");
+        VALUE_TYPES.put("Double", "double");
+        VALUE_TYPES.put("Boolean", "boolean");
+        VALUE_TYPES.put("Object", "Object");
+        VALUE_TYPES.put("List", "ObservableList");
+        VALUE_TYPES.put("Set", "ObservableSet");
+        VALUE_TYPES.put("Map", "ObservableMap");
+    }
+
+    private PropertyTypes() {
+    }
+
+    /**
+     * @return the value type of a field declared with the given type, i.e.
+     * {@code ObservableList<Order>} for {@code ListProperty<Order>}, or
+     * {@code null} if it is not a JavaFx property
+     */
+    static String getValueType(CompilationUnitTree cu, SourcePositions sp, String text, Tree type) {
+        List<? extends Tree> arguments = Collections.emptyList();
+        Tree raw = type;
+        if (type.getKind() == Tree.Kind.PARAMETERIZED_TYPE) {
+            raw = ((ParameterizedTypeTree) type).getType();
+            arguments = ((ParameterizedTypeTree) type).getTypeArguments();
+        }
+        String simpleName;
+        if (raw.getKind() == Tree.Kind.MEMBER_SELECT) {
+            MemberSelectTree select = (MemberSelectTree) raw;
+            if (!PROPERTY_PACKAGE.equals(select.getExpression().toString())) {
+                return null;
+            }
+            simpleName = select.getIdentifier().toString();
+        } else if (raw.getKind() == Tree.Kind.IDENTIFIER) {
+            simpleName = raw.toString();
+            if (!isImported(cu, simpleName)) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+
+        String base = simpleName;
+        if (base.startsWith(SIMPLE)) {
+            base = base.substring(SIMPLE.length());
+        }
+        if (!base.endsWith("Property")) { // NOI18N
+            return null;
+        }
+        String valueType = VALUE_TYPES.get(base.substring(0, base.length() - "Property".length())); // NOI18N
+        if (valueType == null) {
+            return null;
+        }
+        if (arguments.isEmpty()) {
+            return valueType;
+        }
+        if ("Object".equals(valueType)) { // NOI18N
+            return getText(cu, sp, text, arguments.get(0));
+        }
+        StringBuilder sb = new StringBuilder(valueType).append('<');
+        for (int i = 0; i < arguments.size(); i++) {
+            if (i > 0) {
+                sb.append(", "); // NOI18N
+            }
+            sb.append(getText(cu, sp, text, arguments.get(i)));
+        }
+        return sb.append('>').toString();
+    }
+
+    /**
+     * @return the {@code javafx.collections} class the value type refers to,
+     * or {@code null} if there is none
+     */
+    static String getCollectionImport(String valueType) {
+        for (String name : new String[]{"ObservableList", "ObservableSet", "ObservableMap"}) { // NOI18N
+            if (valueType.startsWith(name)) {
+                return COLLECTIONS_PACKAGE + "." + name;
+            }
+        }
+        return null;
+    }
+
+    static boolean isImported(CompilationUnitTree cu, String simpleName) {
+        String single = PROPERTY_PACKAGE + "." + simpleName;
+        String wildcard = PROPERTY_PACKAGE + ".*"; // NOI18N
+        for (ImportTree importTree : cu.getImports()) {
+            String name = importTree.getQualifiedIdentifier().toString();
+            if (!importTree.isStatic() && (name.equals(single) || name.equals(wildcard))) {
+                return true;
+            }
+        }
+        return cu.getPackageName() != null && PROPERTY_PACKAGE.equals(cu.getPackageName().toString());
+    }
+
+    /** The source of a tree with runs of whitespace collapsed to one space. */
+    static String getText(CompilationUnitTree cu, SourcePositions sp, String text, Tree tree) {
+        long start = sp.getStartPosition(cu, tree);
+        long end = sp.getEndPosition(cu, tree);
+        if (start < 0 || end < start) {
+            return tree.toString();
+        }
+        return text.substring((int) start, (int) end).replaceAll("\\s+", " "); // NOI18N
+    }
+
+}
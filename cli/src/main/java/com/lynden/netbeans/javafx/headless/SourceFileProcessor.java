@@ -0,0 +1,423 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx.headless;
+
+import com.lynden.netbeans.javafx.AccessorConventions;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ImportTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.ParameterizedTypeTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.SourcePositions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.lang.model.element.Modifier;
+
+/**
+ * Checks and updates the accessors of the classes of one parsed source file,
+ * following the same rules as the IDE in minimal rewrite mode: accessors that
+ * are up to date are left alone, stale ones are replaced in place, left over
+ * ones are removed and missing ones are appended to the class. The changes
+ * are text edits, so the rest of the file keeps its formatting.
+ *
+ */
+final class SourceFileProcessor {
+
+    private static final String INDENT = "    "; // NOI18N
+    private static final String SHADOW_PREFIX = "_"; // NOI18N
+    private static final Set<Tree.Kind> CLASS_KINDS = EnumSet.of(Tree.Kind.CLASS,
+            Tree.Kind.INTERFACE, Tree.Kind.ENUM, Tree.Kind.ANNOTATION_TYPE);
+    private static final Pattern NEW_CLASS = Pattern.compile("new\\s+([\\w.]+(?:\\s*<[^>(]*>)?)\\s*\\("); // NOI18N
+
+    private final CompilationUnitTree cu;
+    private final SourcePositions sp;
+    private final String text;
+    private final String packagePrefix;
+    private final List<String> problems = new ArrayList<>();
+    private final List<Edit> edits = new ArrayList<>();
+    private final Set<String> imports = new TreeSet<>();
+
+    SourceFileProcessor(CompilationUnitTree cu, SourcePositions sp, String text) {
+        this.cu = cu;
+        this.sp = sp;
+        this.text = text;
+        this.packagePrefix = cu.getPackageName() == null ? "" : cu.getPackageName() + ".";
+    }
+
+    void process() {
+        for (Tree typeDecl : cu.getTypeDecls()) {
+            processClass(typeDecl, packagePrefix);
+        }
+    }
+
+    /** The missing, stale and left over accessors found, one line each. */
+    List<String> getProblems() {
+        return problems;
+    }
+
+    /** @return the updated source, or {@code null} if nothing changed */
+    String getUpdatedText() {
+        if (edits.isEmpty()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(text);
+        List<Edit> sorted = new ArrayList<>(edits);
+        Collections.sort(sorted, new Comparator<Edit>() {
+            @Override
+            public int compare(Edit e1, Edit e2) {
+                return Integer.compare(e2.start, e1.start);
+            }
+        });
+        for (Edit edit : sorted) {
+            sb.replace(edit.start, edit.end, edit.replacement);
+        }
+        addImports(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Processes the accessors of the classes, but not of the enums or
+     * interfaces, the same as the IDE does; the classes nested in any of them
+     * are processed.
+     */
+    private void processClass(Tree tree, String prefix) {
+        if (!CLASS_KINDS.contains(tree.getKind())) {
+            return;
+        }
+        ClassTree classTree = (ClassTree) tree;
+        String className = prefix + classTree.getSimpleName();
+        if (tree.getKind() == Tree.Kind.CLASS) {
+            processAccessors(classTree, className);
+        }
+        for (Tree member : classTree.getMembers()) {
+            processClass(member, className + "."); // NOI18N
+        }
+    }
+
+    private void processAccessors(ClassTree classTree, String className) {
+        Map<String, VariableTree> variables = new HashMap<>();
+        for (Tree member : classTree.getMembers()) {
+            if (member.getKind() == Tree.Kind.VARIABLE) {
+                VariableTree variable = (VariableTree) member;
+                variables.put(variable.getName().toString(), variable);
+            }
+        }
+
+        Map<String, MethodTree> methods = new HashMap<>();
+        for (Tree member : classTree.getMembers()) {
+            if (member.getKind() == Tree.Kind.METHOD) {
+                methods.put(((MethodTree) member).getName().toString(), (MethodTree) member);
+            }
+        }
+
+        Set<String> accessorNames = new HashSet<>();
+        Map<String, Accessor> expected = new LinkedHashMap<>();
+        for (Tree member : classTree.getMembers()) {
+            if (member.getKind() != Tree.Kind.VARIABLE) {
+                continue;
+            }
+            VariableTree variable = (VariableTree) member;
+            if (variable.getModifiers().getFlags().contains(Modifier.STATIC)) {
+                continue;
+            }
+            String valueType = PropertyTypes.getValueType(cu, sp, text, variable.getType());
+            if (valueType != null) {
+                addAccessors(variable, valueType, variables, methods, expected, accessorNames);
+            }
+        }
+        if (expected.isEmpty()) {
+            return;
+        }
+
+        String memberIndent = getMemberIndent(classTree);
+        for (Tree member : classTree.getMembers()) {
+            if (member.getKind() != Tree.Kind.METHOD) {
+                continue;
+            }
+            String name = ((MethodTree) member).getName().toString();
+            if (!accessorNames.contains(name)) {
+                continue;
+            }
+            Accessor accessor = expected.get(name);
+            if (accessor != null && !accessor.present
+                    && accessor.getNormalizedSource().equals(AccessorConventions.stripWhitespace(getSource(member)))) {
+                accessor.present = true;
+            } else if (accessor != null && !accessor.present) {
+                accessor.present = true;
+                report(member, "stale", name, className); // NOI18N
+                int start = (int) sp.getStartPosition(cu, member);
+                edits.add(new Edit(start, (int) sp.getEndPosition(cu, member),
+                        AccessorConventions.indent(accessor.getSource(), memberIndent, INDENT).substring(memberIndent.length())));
+                requireImports(accessor);
+            } else {
+                report(member, "obsolete", name, className); // NOI18N
+                removeMember(member);
+            }
+        }
+
+        StringBuilder missing = new StringBuilder();
+        for (Accessor accessor : expected.values()) {
+            if (!accessor.present) {
+                report(classTree, "missing", accessor.name, className); // NOI18N
+                missing.append('\n').append(AccessorConventions.indent(accessor.getSource(), memberIndent, INDENT)).append('\n');
+                requireImports(accessor);
+            }
+        }
+        if (missing.length() > 0) {
+            insertBeforeClosingBrace(classTree, missing);
+        }
+    }
+
+    private void addAccessors(VariableTree variable, String valueType, Map<String, VariableTree> variables,
+            Map<String, MethodTree> methods, Map<String, Accessor> expected, Set<String> accessorNames) {
+        String fieldName = variable.getName().toString();
+        String propertyType = PropertyTypes.getText(cu, sp, text, variable.getType());
+
+        String shadowName = null;
+        String implementation = null;
+        String candidate = SHADOW_PREFIX + AccessorConventions.getPropertyName(fieldName);
+        if (variable.getInitializer() == null && variables.containsKey(candidate)) {
+            shadowName = candidate;
+            implementation = getLazyImplementation(methods.get(AccessorConventions.getPropertyMethodName(fieldName)),
+                    variable.getType());
+        }
+
+        String setterName = AccessorConventions.getSetterName(fieldName);
+        String getterName = AccessorConventions.getGetterName(fieldName, valueType);
+        String propertyMethodName = AccessorConventions.getPropertyMethodName(fieldName);
+        expected.put(setterName, new Accessor(setterName, valueType,
+                AccessorConventions.createSetterDeclaration(fieldName, valueType),
+                AccessorConventions.createSetterBody(fieldName, shadowName)));
+        expected.put(getterName, new Accessor(getterName, valueType,
+                AccessorConventions.createGetterDeclaration(fieldName, valueType),
+                AccessorConventions.createGetterBody(fieldName, shadowName)));
+        expected.put(propertyMethodName, new Accessor(propertyMethodName, valueType,
+                AccessorConventions.createPropertyMethodDeclaration(fieldName, propertyType),
+                AccessorConventions.createPropertyMethodBody(fieldName, shadowName, implementation)));
+
+        accessorNames.add(setterName);
+        accessorNames.add(propertyMethodName);
+        Collections.addAll(accessorNames, AccessorConventions.getGetterNames(fieldName));
+    }
+
+    /**
+     * The class a lazy property is created with: the one already used by its
+     * property method, else the {@code Simple} implementation of its type.
+     */
+    private String getLazyImplementation(MethodTree propertyMethod, Tree type) {
+        if (propertyMethod != null) {
+            Matcher matcher = NEW_CLASS.matcher(getSource(propertyMethod));
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+        Tree raw = type.getKind() == Tree.Kind.PARAMETERIZED_TYPE
+                ? ((ParameterizedTypeTree) type).getType()
+                : type;
+        String simpleName = raw.toString();
+        simpleName = simpleName.substring(simpleName.lastIndexOf('.') + 1);
+        if (!simpleName.startsWith("Simple")) { // NOI18N
+            simpleName = "Simple" + simpleName; // NOI18N
+        }
+        if (!PropertyTypes.isImported(cu, simpleName)) {
+            imports.add(PropertyTypes.PROPERTY_PACKAGE + "." + simpleName);
+        }
+        return raw == type ? simpleName : simpleName + "<>"; // NOI18N
+    }
+
+    private void requireImports(Accessor accessor) {
+        String collection = PropertyTypes.getCollectionImport(accessor.valueType);
+        if (collection != null) {
+            imports.add(collection);
+        }
+    }
+
+    private void addImports(StringBuilder sb) {
+        StringBuilder lines = new StringBuilder();
+        for (String name : imports) {
+            if (!isImported(name)) {
+                lines.append("import ").append(name).append(";\n"); // NOI18N
+            }
+        }
+        if (lines.length() == 0) {
+            return;
+        }
+        // edits are all inside type declarations, so these offsets still hold
+        int offset;
+        if (!cu.getImports().isEmpty()) {
+            offset = lineEnd((int) sp.getEndPosition(cu, cu.getImports().get(cu.getImports().size() - 1)));
+        } else if (cu.getPackageName() != null) {
+            offset = lineEnd((int) sp.getEndPosition(cu, cu.getPackageName()));
+            lines.insert(0, '\n');
+        } else {
+            offset = 0;
+            lines.append('\n');
+        }
+        sb.insert(offset, lines);
+    }
+
+    private boolean isImported(String qualifiedName) {
+        String wildcard = qualifiedName.substring(0, qualifiedName.lastIndexOf('.')) + ".*"; // NOI18N
+        for (ImportTree importTree : cu.getImports()) {
+            String name = importTree.getQualifiedIdentifier().toString();
+            if (!importTree.isStatic() && (name.equals(qualifiedName) || name.equals(wildcard))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes a member together with its indentation, its line break and the
+     * blank line before it.
+     */
+    private void removeMember(Tree member) {
+        int start = (int) sp.getStartPosition(cu, member);
+        int end = (int) sp.getEndPosition(cu, member);
+        int lineStart = skipIndent(start);
+        if (lineStart == 0 || text.charAt(lineStart - 1) == '\n') {
+            start = lineStart;
+            int lineEnd = lineEnd(end);
+            if (text.substring(end, lineEnd).trim().isEmpty()) {
+                end = lineEnd;
+            }
+            if (start > 0) {
+                int previousLineStart = skipIndent(start - 1);
+                if (previousLineStart == 0 || text.charAt(previousLineStart - 1) == '\n') {
+                    start = previousLineStart;
+                }
+            }
+        }
+        edits.add(new Edit(start, end, "")); // NOI18N
+    }
+
+    private void insertBeforeClosingBrace(ClassTree classTree, StringBuilder members) {
+        int brace = (int) sp.getEndPosition(cu, classTree) - 1;
+        int lineStart = text.lastIndexOf('\n', brace - 1) + 1;
+        if (text.substring(lineStart, brace).trim().isEmpty()) {
+            edits.add(new Edit(lineStart, lineStart, members.toString()));
+        } else {
+            edits.add(new Edit(brace, brace, members.append(getIndent(classTree)).toString()));
+        }
+    }
+
+    /** The offset of the first blank before {@code offset} on its line. */
+    private int skipIndent(int offset) {
+        while (offset > 0 && (text.charAt(offset - 1) == ' ' || text.charAt(offset - 1) == '\t')) {
+            offset--;
+        }
+        return offset;
+    }
+
+    /** The offset after the line break following {@code offset}. */
+    private int lineEnd(int offset) {
+        int newLine = text.indexOf('\n', offset);
+        return newLine < 0 ? text.length() : newLine + 1;
+    }
+
+    private String getMemberIndent(ClassTree classTree) {
+        for (Tree member : classTree.getMembers()) {
+            long start = sp.getStartPosition(cu, member);
+            if (start >= 0) {
+                return getIndent(member);
+            }
+        }
+        return getIndent(classTree) + INDENT;
+    }
+
+    /** The whitespace the line of the tree starts with. */
+    private String getIndent(Tree tree) {
+        int start = (int) sp.getStartPosition(cu, tree);
+        int lineStart = text.lastIndexOf('\n', start - 1) + 1;
+        int end = lineStart;
+        while (end < start && (text.charAt(end) == ' ' || text.charAt(end) == '\t')) {
+            end++;
+        }
+        return text.substring(lineStart, end);
+    }
+
+    private String getSource(Tree tree) {
+        long start = sp.getStartPosition(cu, tree);
+        long end = sp.getEndPosition(cu, tree);
+        return start < 0 || end < start ? "" : text.substring((int) start, (int) end);
+    }
+
+    private void report(Tree tree, String problem, String methodName, String className) {
+        long line = cu.getLineMap().getLineNumber(sp.getStartPosition(cu, tree));
+        problems.add(line + ": " + problem + " accessor " + methodName + " in " + className); // NOI18N
+    }
+
+    /** An accessor that should be in the class. */
+    private static class Accessor {
+
+        private final String name;
+        private final String valueType;
+        private final String declaration;
+        private final String body;
+        private boolean present;
+
+        Accessor(String name, String valueType, String declaration, String body) {
+            this.name = name;
+            this.valueType = valueType;
+            this.declaration = declaration;
+            this.body = body;
+        }
+
+        String getSource() {
+            return declaration + " " + body; // NOI18N
+        }
+
+        String getNormalizedSource() {
+            return AccessorConventions.stripWhitespace(declaration + body);
+        }
+    }
+
+    private static class Edit {
+
+        private final int start;
+        private final int end;
+        private final String replacement;
+
+        Edit(int start, int end, String replacement) {
+            this.start = start;
+            this.end = end;
+            this.replacement = replacement;
+        }
+    }
+
+}
@@ -0,0 +1,245 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The naming and body rules of the generated accessors, as plain text. This
+ * class must not depend on any NetBeans API: it is shared by
+ * {@link PropertyMethodBuilder} in the IDE and by the headless generator, so
+ * both produce the same accessors.
+ *
+ * The {@code shadowName} of the body methods is the shadow field of a lazy
+ * property, see {@link LazyProperty}, or {@code null} for a plain one.
+ *
+ */
+public final class AccessorConventions {
+
+    private static final String PROPERTY = "Property"; // NOI18N
+    private static final Map<String,String> PRIMITIVES_MAP;
+
+    static {
+        PRIMITIVES_MAP = new HashMap<>();
+        PRIMITIVES_MAP.put("Integer", "int");
+        PRIMITIVES_MAP.put("Float", "float");
+        PRIMITIVES_MAP.put("Double", "double");
+        PRIMITIVES_MAP.put("Boolean", "boolean");
+        PRIMITIVES_MAP.put("Long", "long");
+    }
+
+    private AccessorConventions() {
+    }
+
+    public static String replaceWithPrimitive(String typeName) {
+        return PRIMITIVES_MAP.getOrDefault(typeName, typeName);
+    }
+
+    /** The name of the property, i.e. {@code name} for a field {@code nameProperty}. */
+    public static String getPropertyName(String fieldName) {
+        return prepareFieldNameForMethodName(fieldName, false);
+    }
+
+    public static String getPropertyMethodName(String fieldName) {
+        return prepareFieldNameForMethodName(fieldName, false) + PROPERTY;
+    }
+
+    public static String getSetterName(String fieldName) {
+        return "set" + prepareFieldNameForMethodName(fieldName, true); // NOI18N
+    }
+
+    /** The getter name, with the prefix {@link #getGetterPrefix(String)} picks for the type. */
+    public static String getGetterName(String fieldName, String valueType) {
+        return getGetterPrefix(valueType) + prepareFieldNameForMethodName(fieldName, true);
+    }
+
+    /**
+     * Every name a getter of the field may have, whatever its type, so that
+     * a getter left over from a previous type is recognized.
+     */
+    public static String[] getGetterNames(String fieldName) {
+        String name = prepareFieldNameForMethodName(fieldName, true);
+        return new String[]{"get" + name, "is" + name}; // NOI18N
+    }
+
+    public static String getGetterPrefix(String typeName) {
+        return "boolean".equals(typeName) ? "is" : "get"; // NOI18N
+    }
+
+    /**
+     * The type argument of the {@code ObservableValue} a property implements
+     * for the given value type: primitive numbers are observed as
+     * {@code Number} and {@code boolean} as {@code Boolean}.
+     */
+    public static String getObservableType(String valueType) {
+        switch (valueType) {
+            case "int": // NOI18N
+            case "long": // NOI18N
+            case "float": // NOI18N
+            case "double": // NOI18N
+                return "Number"; // NOI18N
+            case "boolean": // NOI18N
+                return "Boolean"; // NOI18N
+            default:
+                return valueType;
+        }
+    }
+
+    /** The wrapper class of a primitive value type, any other type as is. */
+    public static String getBoxedType(String valueType) {
+        for (Map.Entry<String, String> entry : PRIMITIVES_MAP.entrySet()) {
+            if (entry.getValue().equals(valueType)) {
+                return entry.getKey();
+            }
+        }
+        return valueType;
+    }
+
+    public static String createSetterDeclaration(String fieldName, String valueType) {
+        return "public final void " + getSetterName(fieldName) + "(" + valueType + " value)"; // NOI18N
+    }
+
+    public static String createGetterDeclaration(String fieldName, String valueType) {
+        return "public final " + valueType + " " + getGetterName(fieldName, valueType) + "()"; // NOI18N
+    }
+
+    public static String createPropertyMethodDeclaration(String fieldName, String propertyType) {
+        return "public final " + propertyType + " " + getPropertyMethodName(fieldName) + "()"; // NOI18N
+    }
+
+    /**
+     * @param implementation the property class a lazy property is created
+     * with, ignored for a plain one
+     */
+    public static String createPropertyMethodBody(String fieldName, String shadowName, String implementation) {
+        StringBuilder sb = new StringBuilder();
+        if (shadowName != null) {
+            sb.append("{\n")
+                    .append("if (").append(fieldName).append(" == null) {\n")
+                    .append(fieldName).append(" = new ").append(implementation)
+                    .append("(this, \"").append(getPropertyName(fieldName)).append("\", ")
+                    .append(shadowName).append(");\n")
+                    .append("}\n")
+                    .append("return ")
+                    .append(fieldName)
+                    .append(";\n}");
+            return sb.toString();
+        }
+        sb.append("{\n")
+                .append("return ")
+                .append(fieldName)
+                .append(";\n}");
+        return sb.toString();
+    }
+
+    public static String createGetterBody(String fieldName, String shadowName) {
+        StringBuilder sb = new StringBuilder();
+        if (shadowName != null) {
+            sb.append("{\n")
+                    .append("return ")
+                    .append(fieldName).append(" == null ? ")
+                    .append(shadowName).append(" : ")
+                    .append(fieldName)
+                    .append(".get();\n}");
+            return sb.toString();
+        }
+        sb.append("{\n")
+                .append("return ")
+                .append(fieldName)
+                .append(".get();\n}");
+        return sb.toString();
+    }
+
+    public static String createSetterBody(String fieldName, String shadowName) {
+        StringBuilder sb = new StringBuilder();
+        if (shadowName != null) {
+            sb.append("{\n")
+                    .append("if (").append(fieldName).append(" == null) {\n")
+                    .append(shadowName).append(" = value;\n")
+                    .append("} else {\n")
+                    .append(fieldName)
+                    .append(".set(value);\n")
+                    .append("}\n}");
+            return sb.toString();
+        }
+        sb.append("{\n")
+                .append(fieldName)
+                .append(".set(value);\n}");
+        return sb.toString();
+    }
+
+    /**
+     * Lays out an accessor source on the given indentation, one {@code unit}
+     * deeper per open brace; lines are separated by {@code '\n'}.
+     */
+    public static String indent(String source, String indent, String unit) {
+        StringBuilder sb = new StringBuilder(source.length() + 64);
+        int depth = 0;
+        for (String line : source.split("\n")) { // NOI18N
+            String trimmed = line.trim();
+            if (trimmed.startsWith("}")) { // NOI18N
+                depth--;
+            }
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            sb.append(indent);
+            for (int i = 0; i < depth; i++) {
+                sb.append(unit);
+            }
+            sb.append(trimmed);
+            if (trimmed.endsWith("{")) { // NOI18N
+                depth++;
+            }
+        }
+        return sb.toString();
+    }
+
+    /** The text accessors are compared on, so formatting doesn't make them stale. */
+    public static String stripWhitespace(CharSequence text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String prepareFieldNameForMethodName(String fieldName, boolean firstCharToUpperCase) {
+        if (firstCharToUpperCase) {
+            fieldName = fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
+        }
+
+        if (fieldName.endsWith(PROPERTY)) {
+            fieldName = fieldName.substring(0, fieldName.length() - PROPERTY.length());
+        }
+
+        return fieldName;
+    }
+
+}
@@ -0,0 +1,222 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import org.netbeans.api.java.source.CompilationInfo;
+import org.netbeans.api.java.source.WorkingCopy;
+import org.netbeans.spi.editor.hints.ErrorDescription;
+import org.netbeans.spi.editor.hints.Fix;
+import org.netbeans.spi.editor.hints.Severity;
+import org.netbeans.spi.java.hints.ErrorDescriptionFactory;
+import org.netbeans.spi.java.hints.Hint;
+import org.netbeans.spi.java.hints.HintContext;
+import org.netbeans.spi.java.hints.JavaFix;
+import org.netbeans.spi.java.hints.TriggerTreeKind;
+import org.openide.filesystems.FileObject;
+import org.openide.util.NbBundle;
+
+/**
+ * Flags the property fields whose accessors are missing, stale or left over
+ * and offers the generator as a fix. Being a regular Java hint, it also runs
+ * from Source &gt; Inspect.
+ *
+ * The result of each class is kept with a hash of the class text, so while
+ * editing only the classes that actually changed are checked again. Inherited
+ * fields are flagged on the name of the class.
+ *
+ */
+@Hint(displayName = "#DN_AccessorHint", description = "#DESC_AccessorHint",
+        category = "general", severity = Severity.VERIFIER) // NOI18N
+public class AccessorHint {
+
+    /** Number of classes whose result is kept. */
+    static final int MAX_CLASSES = 256;
+
+    private static final Map<String, ClassCheck> CHECKS = new LinkedHashMap<String, ClassCheck>(MAX_CLASSES, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ClassCheck> eldest) {
+            return size() > MAX_CLASSES;
+        }
+    };
+
+    @TriggerTreeKind(Tree.Kind.CLASS)
+    public static List<ErrorDescription> run(HintContext ctx) {
+        CompilationInfo info = ctx.getInfo();
+        TreePath path = ctx.getPath();
+        ClassTree classTree = (ClassTree) path.getLeaf();
+        Element element = info.getTrees().getElement(path);
+        if (element == null || !element.getKind().isClass()) {
+            return Collections.emptyList();
+        }
+
+        String key = getKey(info.getFileObject(), info.getElements().getBinaryName((TypeElement) element).toString());
+        int hash = hashClassText(info, classTree);
+        ClassCheck check;
+        synchronized (CHECKS) {
+            check = CHECKS.get(key);
+        }
+        if (check == null || check.hash != hash) {
+            check = checkClass(info, path, hash);
+            if (check == null || ctx.isCanceled()) {
+                return Collections.emptyList();
+            }
+            if (!PropertyTypeClassifier.readsSuperclasses((TypeElement) element)) {
+                synchronized (CHECKS) {
+                    CHECKS.put(key, check);
+                }
+            }
+        }
+        if (check.invalid.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Fix fix = new GenerateFix(info, path).toEditorFix();
+        List<ErrorDescription> result = new ArrayList<>(check.invalid.size());
+        Map<String, List<String>> inherited = new LinkedHashMap<>(check.invalid);
+        for (Tree member : classTree.getMembers()) {
+            if (member.getKind() != Tree.Kind.VARIABLE) {
+                continue;
+            }
+            List<String> names = inherited.remove(((VariableTree) member).getName().toString());
+            if (names != null) {
+                result.add(ErrorDescriptionFactory.forName(ctx, member,
+                        NbBundle.getMessage(AccessorHint.class, "ERR_AccessorHint", names.toString()), fix));
+            }
+        }
+        // fields of a superclass have no declaration here, they are reported on the class name
+        for (Map.Entry<String, List<String>> entry : inherited.entrySet()) {
+            result.add(ErrorDescriptionFactory.forName(ctx, classTree,
+                    NbBundle.getMessage(AccessorHint.class, "ERR_InheritedAccessorHint",
+                            entry.getKey(), entry.getValue().toString()), fix));
+        }
+        return result;
+    }
+
+    private static ClassCheck checkClass(CompilationInfo info, TreePath path, int hash) {
+        Map<String, List<String>> invalid = findInvalidAccessors(info, path);
+        return invalid == null ? null : new ClassCheck(hash, invalid);
+    }
+
+    /**
+     * Checks the accessors of the class at {@code path}, with the same
+     * options as the generator.
+     *
+     * @return the names of the invalid accessors keyed by field name, or
+     * {@code null} if the path isn't a class
+     */
+    static Map<String, List<String>> findInvalidAccessors(CompilationInfo info, TreePath path) {
+        AnalysisCache.ClassAnalysis analysis = AnalysisCache.getClassAnalysis(info, path);
+        if (analysis == null) {
+            return null;
+        }
+        ClassTree classTree = (ClassTree) path.getLeaf();
+        List<PropertyField> fields = analysis.getFields();
+        Map<String, LazyProperty> lazyProperties = GeneratorOptions.isLazyProperties()
+                ? LazyProperty.analyze(classTree, fields)
+                : Collections.<String, LazyProperty>emptyMap();
+        Map<PropertyField, List<String>> invalid = new PropertyMethodBuilder(null, null, fields)
+                .lazyProperties(lazyProperties)
+                .findInvalidAccessors(info, classTree);
+        Map<String, List<String>> byName = new LinkedHashMap<>();
+        for (Map.Entry<PropertyField, List<String>> entry : invalid.entrySet()) {
+            byName.put(entry.getKey().getName(), entry.getValue());
+        }
+        return byName;
+    }
+
+    /**
+     * Hash of the source text of the class. Inherited fields are not part of
+     * it, so the classes reading fields of a superclass are not kept.
+     */
+    private static int hashClassText(CompilationInfo info, ClassTree classTree) {
+        CompilationUnitTree cu = info.getCompilationUnit();
+        SourcePositions sp = info.getTrees().getSourcePositions();
+        int start = (int) sp.getStartPosition(cu, classTree);
+        int end = (int) sp.getEndPosition(cu, classTree);
+        CharSequence text = info.getText();
+        int hash = 31 * GeneratorOptions.getInheritedFieldsFrom().hashCode()
+                + (GeneratorOptions.isLazyProperties() ? 1 : 0);
+        for (int i = Math.max(0, start); i < end && i < text.length(); i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        return hash;
+    }
+
+    private static String getKey(FileObject file, String className) {
+        return (file == null ? "" : file.toURI().toString()) + '#' + className; // NOI18N
+    }
+
+    private static class ClassCheck {
+
+        private final int hash;
+        /** Invalid accessor names keyed by field name. */
+        private final Map<String, List<String>> invalid;
+
+        ClassCheck(int hash, Map<String, List<String>> invalid) {
+            this.hash = hash;
+            this.invalid = invalid;
+        }
+    }
+
+    /** Runs the generator on the class of the hint. */
+    private static final class GenerateFix extends JavaFix {
+
+        GenerateFix(CompilationInfo info, TreePath classPath) {
+            super(info, classPath);
+        }
+
+        @Override
+        protected String getText() {
+            return NbBundle.getMessage(AccessorHint.class, "FIX_AccessorHint");
+        }
+
+        @Override
+        protected void performRewrite(TransformationContext ctx) {
+            WorkingCopy wc = ctx.getWorkingCopy();
+            TreePath path = ctx.getPath();
+            AnalysisCache.ClassAnalysis analysis = AnalysisCache.getClassAnalysis(wc, path);
+            if (analysis != null && !analysis.getFields().isEmpty()) {
+                JavaFxBeanHelper.generateAccessors(wc, path, ((ClassTree) path.getLeaf()).getMembers().size(),
+                        analysis.getFields(), new GenerationBudget(0));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.openide.cookies.LineCookie;
+import org.openide.filesystems.FileObject;
+import org.openide.loaders.DataObject;
+import org.openide.loaders.DataObjectNotFoundException;
+import org.openide.text.Line;
+import org.openide.util.Exceptions;
+import org.openide.util.NbBundle;
+import org.openide.windows.IOProvider;
+import org.openide.windows.InputOutput;
+import org.openide.windows.OutputEvent;
+import org.openide.windows.OutputListener;
+import org.openide.windows.OutputWriter;
+
+/**
+ * Lists the fields found by an accessor inspection in the Output window;
+ * each line opens its field.
+ *
+ */
+final class AccessorReport {
+
+    private AccessorReport() {
+    }
+
+    /** Shows the problems sorted by file and line, followed by the summary. */
+    static void show(List<Problem> problems, String summary) {
+        List<Problem> sorted = new ArrayList<>(problems);
+        Collections.sort(sorted, new Comparator<Problem>() {
+            @Override
+            public int compare(Problem p1, Problem p2) {
+                int result = p1.file.getPath().compareTo(p2.file.getPath());
+                return result != 0 ? result : Integer.compare(p1.line, p2.line);
+            }
+        });
+
+        InputOutput io = IOProvider.getDefault().getIO(
+                NbBundle.getMessage(AccessorReport.class, "LBL_InspectionOutput"), false);
+        io.select();
+        OutputWriter out = io.getOut();
+        try {
+            out.reset();
+            for (Problem problem : sorted) {
+                out.println(problem.text, new OpenListener(problem.file, problem.line));
+            }
+        } catch (IOException ex) {
+            Exceptions.printStackTrace(ex);
+        }
+        out.println(summary);
+        out.close();
+    }
+
+    /** A field with invalid accessors. */
+    static final class Problem {
+
+        private final FileObject file;
+        private final int line;
+        private final String text;
+
+        /**
+         * @param line the one based line of the field
+         */
+        Problem(FileObject file, int line, String text) {
+            this.file = file;
+            this.line = line;
+            this.text = text;
+        }
+    }
+
+    private static class OpenListener implements OutputListener {
+
+        private final FileObject file;
+        private final int line;
+
+        OpenListener(FileObject file, int line) {
+            this.file = file;
+            this.line = line;
+        }
+
+        @Override
+        public void outputLineAction(OutputEvent ev) {
+            try {
+                LineCookie lineCookie = DataObject.find(file).getLookup().lookup(LineCookie.class);
+                if (lineCookie != null) {
+                    lineCookie.getLineSet().getOriginal(Math.max(0, line - 1))
+                            .show(Line.ShowOpenType.OPEN, Line.ShowVisibilityType.FOCUS);
+                }
+            } catch (DataObjectNotFoundException | IndexOutOfBoundsException ex) {
+                Exceptions.printStackTrace(ex);
+            }
+        }
+
+        @Override
+        public void outputLineSelected(OutputEvent ev) {
+        }
+
+        @Override
+        public void outputLineCleared(OutputEvent ev) {
+        }
+    }
+
+}
@@ -0,0 +1,298 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ImportTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import java.io.IOException;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.StyledDocument;
+import org.netbeans.api.java.source.Comment;
+import org.netbeans.api.java.source.CompilationController;
+import org.netbeans.api.java.source.JavaSource;
+import org.netbeans.api.java.source.Task;
+import org.netbeans.lib.editor.util.swing.DocumentUtilities;
+import org.netbeans.modules.editor.indent.api.IndentUtils;
+import org.openide.text.NbDocument;
+
+/**
+ * Fast path for classes which only lack accessors: the missing accessors are
+ * rendered as text and inserted with a single undoable document edit at the
+ * caret's member slot, so nothing has to be rewritten, re-parsed and
+ * reformatted through a {@code TreeMaker}. The indentation follows the code
+ * style of the document.
+ *
+ * The fast path is not taken, {@link #prepare} returns {@code null}, when an
+ * accessor has to be replaced or removed, when the field declarations have to
+ * be rewritten, when a type of an accessor would need an import, or in
+ * whole file mode.
+ *
+ */
+final class AccessorTextInsertion {
+
+    private static final Logger LOG = Logger.getLogger(AccessorTextInsertion.class.getName());
+
+    private static final Pattern QUALIFIED_NAME = Pattern.compile("[\\w$]+(?:\\.[\\w$]+)+"); // NOI18N
+
+    private final StyledDocument doc;
+    private final long version;
+    private final int offset;
+    private final int classStart;
+    private final boolean atClassEnd;
+    private final List<String> accessors;
+
+    private AccessorTextInsertion(StyledDocument doc, long version, int offset, int classStart,
+            boolean atClassEnd, List<String> accessors) {
+        this.doc = doc;
+        this.version = version;
+        this.offset = offset;
+        this.classStart = classStart;
+        this.atClassEnd = atClassEnd;
+        this.accessors = accessors;
+    }
+
+    /**
+     * Analyzes the class at the caret; must not be called in the event
+     * dispatch thread.
+     *
+     * @return the insertion to {@link #apply()}, or {@code null} if the
+     * accessors have to be generated by rewriting the class
+     */
+    static AccessorTextInsertion prepare(JavaSource javaSource, Document document, final int caretOffset,
+            final GenerationBudget budget) throws IOException {
+        if (!(document instanceof StyledDocument) || GeneratorOptions.needsTreeRewrite()) {
+            return null;
+        }
+        final StyledDocument doc = (StyledDocument) document;
+        final AccessorTextInsertion[] result = new AccessorTextInsertion[1];
+        javaSource.runUserActionTask(new Task<CompilationController>() {
+            @Override
+            public void run(CompilationController cc) throws IOException {
+                long version = DocumentUtilities.getDocumentVersion(doc);
+                cc.toPhase(JavaSource.Phase.ELEMENTS_RESOLVED);
+                budget.check();
+                result[0] = analyze(cc, doc, version, caretOffset, budget);
+            }
+        }, true);
+        return result[0];
+    }
+
+    private static AccessorTextInsertion analyze(CompilationController cc, StyledDocument doc, long version,
+            int caretOffset, GenerationBudget budget) {
+        TreePath path = TreeHelper.getParentElementOfKind(Tree.Kind.CLASS,
+                cc.getTreeUtilities().pathFor(caretOffset));
+        AnalysisCache.ClassAnalysis analysis = path == null ? null : AnalysisCache.getClassAnalysis(cc, path);
+        if (analysis == null) {
+            return null;
+        }
+        List<PropertyField> fields = analysis.getFields();
+        for (PropertyField field : fields) {
+            if (!isImported(cc, field.getQualifiedValueType())
+                    || !isImported(cc, field.getQualifiedPropertyType())) {
+                return null;
+            }
+        }
+
+        ClassTree classTree = (ClassTree) path.getLeaf();
+        StageTimer timer = StageTimer.start(StageTimer.Stage.MERGE, cc.getTrees().getElement(path).toString())
+                .members(classTree.getMembers().size())
+                .properties(fields.size());
+        List<String> accessors;
+        try {
+            accessors = new PropertyMethodBuilder(null, null, fields)
+                    .budget(budget)
+                    .getMissingAccessorSources(cc, classTree);
+        } finally {
+            timer.end();
+        }
+        if (accessors == null) {
+            return null;
+        }
+
+        CompilationUnitTree cu = cc.getCompilationUnit();
+        SourcePositions sp = cc.getTrees().getSourcePositions();
+        CharSequence text = cc.getText();
+        int classStart = (int) sp.getStartPosition(cu, classTree);
+        int index = AnalysisCache.findClassMemberIndex(cc, path, caretOffset);
+        List<? extends Tree> members = classTree.getMembers();
+        if (index < members.size()) {
+            Tree member = members.get(index);
+            int offset = getFirstCommentStart(cc, member, (int) sp.getStartPosition(cu, member));
+            int lineStart = lineStart(text, offset);
+            if (!isBlank(text, lineStart, offset)) {
+                return null;
+            }
+            return new AccessorTextInsertion(doc, version, lineStart, classStart, false, accessors);
+        }
+        int brace = (int) sp.getEndPosition(cu, classTree) - 1;
+        int lineStart = lineStart(text, brace);
+        if (brace < 0 || !isBlank(text, lineStart, brace)) {
+            return null;
+        }
+        return new AccessorTextInsertion(doc, version, lineStart, classStart, true, accessors);
+    }
+
+    /**
+     * Inserts the accessors; must be called in the event dispatch thread.
+     *
+     * @return {@code false} if the document changed since it was analyzed, or
+     * can't be changed at the insertion point
+     */
+    boolean apply() {
+        if (accessors.isEmpty()) {
+            return true;
+        }
+        if (DocumentUtilities.getDocumentVersion(doc) != version) {
+            return false;
+        }
+        final BadLocationException[] failure = new BadLocationException[1];
+        StageTimer timer = StageTimer.start(StageTimer.Stage.COMMIT,
+                String.valueOf(doc.getProperty(Document.TitleProperty)));
+        try {
+            NbDocument.runAtomicAsUser(doc, new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        doc.insertString(offset, render(), null);
+                    } catch (BadLocationException ex) {
+                        failure[0] = ex;
+                    }
+                }
+            });
+        } catch (BadLocationException ex) {
+            failure[0] = ex;
+        } finally {
+            timer.end();
+        }
+        if (failure[0] != null) {
+            LOG.log(Level.FINE, "Text insertion failed", failure[0]); // NOI18N
+            return false;
+        }
+        return true;
+    }
+
+    /** Renders the accessors into one buffer sized for all of them. */
+    private String render() throws BadLocationException {
+        int classIndent = IndentUtils.lineIndent(doc, IndentUtils.lineStartOffset(doc, classStart));
+        int levelSize = IndentUtils.indentLevelSize(doc);
+        String indent = IndentUtils.createIndentString(doc, classIndent + levelSize);
+        String unit = IndentUtils.createIndentString(doc, levelSize);
+
+        int size = 0;
+        for (String accessor : accessors) {
+            size += accessor.length() + 8 * indent.length() + 2;
+        }
+        StringBuilder sb = new StringBuilder(size);
+        for (String accessor : accessors) {
+            if (atClassEnd) {
+                sb.append('\n');
+            }
+            sb.append(AccessorConventions.indent(accessor, indent, unit)).append('\n');
+            if (!atClassEnd) {
+                sb.append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Checks that every class in the qualified type can be written with its
+     * simple name in this file without adding an import.
+     */
+    private static boolean isImported(CompilationController cc, String qualifiedType) {
+        Matcher matcher = QUALIFIED_NAME.matcher(qualifiedType);
+        while (matcher.find()) {
+            TypeElement type = cc.getElements().getTypeElement(matcher.group());
+            if (type == null || type.getEnclosingElement().getKind() != ElementKind.PACKAGE) {
+                return false;
+            }
+            String packageName = ((PackageElement) type.getEnclosingElement()).getQualifiedName().toString();
+            if (!"java.lang".equals(packageName) // NOI18N
+                    && !isSamePackage(cc.getCompilationUnit(), packageName)
+                    && !hasImport(cc.getCompilationUnit(), matcher.group(), packageName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSamePackage(CompilationUnitTree cu, String packageName) {
+        return cu.getPackageName() == null
+                ? packageName.isEmpty()
+                : packageName.equals(cu.getPackageName().toString());
+    }
+
+    private static boolean hasImport(CompilationUnitTree cu, String qualifiedName, String packageName) {
+        for (ImportTree importTree : cu.getImports()) {
+            String name = importTree.getQualifiedIdentifier().toString();
+            if (!importTree.isStatic() && (name.equals(qualifiedName) || name.equals(packageName + ".*"))) { // NOI18N
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** The start of the javadoc or comments in front of a member. */
+    private static int getFirstCommentStart(CompilationController cc, Tree member, int start) {
+        int first = start;
+        for (Comment comment : cc.getTreeUtilities().getComments(member, true)) {
+            if (comment.pos() >= 0 && comment.pos() < first) {
+                first = comment.pos();
+            }
+        }
+        return first;
+    }
+
+    private static int lineStart(CharSequence text, int offset) {
+        int lineStart = offset;
+        while (lineStart > 0 && text.charAt(lineStart - 1) != '\n') {
+            lineStart--;
+        }
+        return lineStart;
+    }
+
+    private static boolean isBlank(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
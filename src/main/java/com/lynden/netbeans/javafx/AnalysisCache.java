@@ -0,0 +1,271 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.swing.text.Document;
+import org.netbeans.api.java.source.ClassIndex;
+import org.netbeans.api.java.source.ClassIndexListener;
+import org.netbeans.api.java.source.CompilationInfo;
+import org.netbeans.api.java.source.RootsEvent;
+import org.netbeans.api.java.source.TypesEvent;
+import org.netbeans.editor.GuardedDocument;
+import org.netbeans.lib.editor.util.swing.DocumentUtilities;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Keeps the analysis of the classes of the most recently used files, so that
+ * invoking the generator again on an unchanged document doesn't classify the
+ * fields and look up the member positions again. Entries are keyed by file
+ * and document version, so any edit invalidates them, by the options that
+ * change which fields are collected, and by the state of the Java index: a
+ * change to the types of another file, like a property subclass or a value
+ * type declared in the project, invalidates every entry. Classes that take
+ * fields from their superclasses are never cached, since an unsaved edit of
+ * a superclass file changes neither the version of the subclass document
+ * nor the index.
+ *
+ */
+final class AnalysisCache {
+
+    /** Number of files whose analysis is kept. */
+    static final int MAX_FILES = 16;
+
+    private static final long NO_VERSION = -1;
+
+    /** The class indexes listened to, one per classpath; weak keys let closed projects go. */
+    private static final Map<ClassIndex, Boolean> INDEXES = new WeakHashMap<>();
+
+    private static final ClassIndexListener INDEX_LISTENER = new IndexListener();
+
+    /** Incremented on every index change, guarded by {@link #CACHE}. */
+    private static long indexGeneration;
+
+    private static final Map<FileObject, FileAnalysis> CACHE = new LinkedHashMap<FileObject, FileAnalysis>(MAX_FILES, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<FileObject, FileAnalysis> eldest) {
+            return size() > MAX_FILES;
+        }
+    };
+
+    private AnalysisCache() {
+    }
+
+    /**
+     * Returns the analysis of the class at {@code classPath}, computing it if
+     * the document changed since it was cached.
+     *
+     * @return {@code null} if the path isn't a class
+     */
+    static ClassAnalysis getClassAnalysis(CompilationInfo info, TreePath classPath) {
+        Element element = info.getTrees().getElement(classPath);
+        if (element == null || !element.getKind().isClass()) {
+            return null;
+        }
+        TypeElement typeElement = (TypeElement) element;
+        String className = info.getElements().getBinaryName(typeElement).toString();
+        FileObject file = info.getFileObject();
+        long version = PropertyTypeClassifier.readsSuperclasses(typeElement)
+                ? NO_VERSION
+                : getDocumentVersion(info);
+        String inheritedFieldsFrom = GeneratorOptions.getInheritedFieldsFrom();
+        long generation = 0;
+
+        if (version != NO_VERSION) {
+            listen(info.getClasspathInfo().getClassIndex());
+            synchronized (CACHE) {
+                generation = indexGeneration;
+                FileAnalysis fileAnalysis = CACHE.get(file);
+                if (fileAnalysis != null && fileAnalysis.isValid(version, generation, inheritedFieldsFrom)) {
+                    ClassAnalysis classAnalysis = fileAnalysis.classes.get(className);
+                    if (classAnalysis != null) {
+                        return classAnalysis;
+                    }
+                }
+            }
+        }
+
+        List<PropertyField> fields = PropertyTypeClassifier.forCompilation(info)
+                .getPropertyFields(info, classPath);
+        ClassAnalysis classAnalysis = new ClassAnalysis(fields,
+                getMemberStarts(info.getCompilationUnit(), info.getTrees().getSourcePositions(),
+                        (ClassTree) classPath.getLeaf()));
+
+        if (version != NO_VERSION) {
+            synchronized (CACHE) {
+                if (generation != indexGeneration) {
+                    // the index changed while the fields were collected
+                    return classAnalysis;
+                }
+                FileAnalysis fileAnalysis = CACHE.get(file);
+                if (fileAnalysis == null || !fileAnalysis.isValid(version, generation, inheritedFieldsFrom)) {
+                    fileAnalysis = new FileAnalysis(version, generation, inheritedFieldsFrom);
+                    CACHE.put(file, fileAnalysis);
+                }
+                fileAnalysis.classes.put(className, classAnalysis);
+            }
+        }
+        return classAnalysis;
+    }
+
+    /**
+     * Finds the index of the class member at the caret, using the cached
+     * member positions unless the document has guarded blocks.
+     */
+    static int findClassMemberIndex(CompilationInfo info, TreePath classPath, int offset) {
+        Document doc = getDocument(info);
+        ClassAnalysis classAnalysis = doc instanceof GuardedDocument ? null : getClassAnalysis(info, classPath);
+        if (classAnalysis == null) {
+            return TreeHelper.findClassMemberIndex(info, (ClassTree) classPath.getLeaf(), offset);
+        }
+        return classAnalysis.findMemberIndex(offset);
+    }
+
+    private static long[] getMemberStarts(CompilationUnitTree cu, SourcePositions sp, ClassTree classTree) {
+        List<? extends Tree> members = classTree.getMembers();
+        long[] starts = new long[members.size()];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = sp.getStartPosition(cu, members.get(i));
+        }
+        return starts;
+    }
+
+    private static long getDocumentVersion(CompilationInfo info) {
+        Document doc = getDocument(info);
+        return doc == null ? NO_VERSION : DocumentUtilities.getDocumentVersion(doc);
+    }
+
+    private static Document getDocument(CompilationInfo info) {
+        try {
+            return info.getDocument();
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private static void listen(ClassIndex index) {
+        synchronized (INDEXES) {
+            if (INDEXES.put(index, Boolean.TRUE) == null) {
+                index.addClassIndexListener(INDEX_LISTENER);
+            }
+        }
+    }
+
+    private static void indexChanged() {
+        synchronized (CACHE) {
+            indexGeneration++;
+            CACHE.clear();
+        }
+    }
+
+    private static class FileAnalysis {
+
+        private final long version;
+        private final long indexGeneration;
+        private final String inheritedFieldsFrom;
+        private final Map<String, ClassAnalysis> classes = new HashMap<>();
+
+        FileAnalysis(long version, long indexGeneration, String inheritedFieldsFrom) {
+            this.version = version;
+            this.indexGeneration = indexGeneration;
+            this.inheritedFieldsFrom = inheritedFieldsFrom;
+        }
+
+        boolean isValid(long version, long indexGeneration, String inheritedFieldsFrom) {
+            return this.version == version && this.indexGeneration == indexGeneration
+                    && this.inheritedFieldsFrom.equals(inheritedFieldsFrom);
+        }
+    }
+
+    /** Invalidates the cache on any change of the types or roots of an index. */
+    private static class IndexListener implements ClassIndexListener {
+
+        @Override
+        public void typesAdded(TypesEvent event) {
+            indexChanged();
+        }
+
+        @Override
+        public void typesRemoved(TypesEvent event) {
+            indexChanged();
+        }
+
+        @Override
+        public void typesChanged(TypesEvent event) {
+            indexChanged();
+        }
+
+        @Override
+        public void rootsAdded(RootsEvent event) {
+            indexChanged();
+        }
+
+        @Override
+        public void rootsRemoved(RootsEvent event) {
+            indexChanged();
+        }
+    }
+
+    /** The property fields and member positions of a class. */
+    static final class ClassAnalysis {
+
+        private final List<PropertyField> fields;
+        private final long[] memberStarts;
+
+        ClassAnalysis(List<PropertyField> fields, long[] memberStarts) {
+            this.fields = Collections.unmodifiableList(fields);
+            this.memberStarts = memberStarts;
+        }
+
+        List<PropertyField> getFields() {
+            return fields;
+        }
+
+        /** Same as {@link TreeHelper#findClassMemberIndex} without guarded blocks. */
+        int findMemberIndex(int offset) {
+            int index = 0;
+            while (index < memberStarts.length && offset > memberStarts[index]) {
+                index++;
+            }
+            return index;
+        }
+    }
+
+}
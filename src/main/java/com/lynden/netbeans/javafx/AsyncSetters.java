@@ -0,0 +1,303 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.tree.AnnotationTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.TypeParameterTree;
+import com.sun.source.tree.VariableTree;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import org.netbeans.api.java.source.TreeMaker;
+
+/**
+ * Thread safe setters which coalesce the updates made from background
+ * threads: the latest value of each property waits in an atomic slot and at
+ * most one runnable per bean is queued on the FX thread to apply them, so a
+ * burst of updates costs a single {@code Platform.runLater} and only the most
+ * recent values are set:
+ *
+ * <pre>
+ * public final void setPriceAsync(double value) {
+ *     priceAsyncValue.set(value);
+ *     scheduleAsyncDrain();
+ * }
+ *
+ * private void drainAsyncValues() {
+ *     asyncDrainScheduled.set(false);
+ *     Object value = priceAsyncValue.getAndSet(NO_ASYNC_VALUE);
+ *     if (value != NO_ASYNC_VALUE) {
+ *         setPrice((Double) value);
+ *     }
+ * }
+ * </pre>
+ *
+ * The scheduled flag is cleared before the slots are read, so a value set
+ * while the drain runs schedules another one instead of getting lost.
+ *
+ */
+final class AsyncSetters extends GeneratedMembers {
+
+    private static final String NO_VALUE_FIELD = "NO_ASYNC_VALUE"; // NOI18N
+    private static final String SCHEDULED_FIELD = "asyncDrainScheduled"; // NOI18N
+    private static final String SCHEDULE_METHOD = "scheduleAsyncDrain"; // NOI18N
+    private static final String DRAIN_METHOD = "drainAsyncValues"; // NOI18N
+    private static final String SLOT_SUFFIX = "AsyncValue"; // NOI18N
+    private static final String SETTER_SUFFIX = "Async"; // NOI18N
+
+    private static final String ATOMIC_BOOLEAN = "java.util.concurrent.atomic.AtomicBoolean"; // NOI18N
+    private static final String ATOMIC_REFERENCE = "java.util.concurrent.atomic.AtomicReference"; // NOI18N
+    private static final String PLATFORM = "javafx.application.Platform"; // NOI18N
+
+    private static final String[] IMPORTS = {ATOMIC_BOOLEAN, ATOMIC_REFERENCE, PLATFORM};
+
+    /** A generated async setter without whitespace: its name and the property part of its slot. */
+    private static final Pattern LEFTOVER_SETTER = Pattern.compile("publicfinalvoid(\\w+)\\([^)]+value\\)" // NOI18N
+            + "\\{(\\w+)" + SLOT_SUFFIX + "\\.set\\(value\\);" + SCHEDULE_METHOD + "\\(\\);\\}"); // NOI18N
+
+    AsyncSetters(TreeMaker make, TypeElement bean, List<PropertyField> fields) {
+        super(make, bean, fields);
+    }
+
+    @Override
+    protected String[] getImports() {
+        return IMPORTS;
+    }
+
+    /**
+     * The shared members, the {@code *AsyncValue} slots and the one argument
+     * {@code set*Async} methods. Slots and setters which don't belong to a
+     * current field are only removed by {@link #isLeftover}.
+     */
+    @Override
+    protected String getGeneratedName(Tree member) {
+        if (member.getKind() == Tree.Kind.VARIABLE) {
+            VariableTree variable = (VariableTree) member;
+            String name = variable.getName().toString();
+            boolean slot = name.endsWith(SLOT_SUFFIX) && name.length() > SLOT_SUFFIX.length()
+                    && variable.getType().toString().contains("AtomicReference"); // NOI18N
+            return NO_VALUE_FIELD.equals(name) || SCHEDULED_FIELD.equals(name) || slot ? name : null;
+        }
+        if (member.getKind() != Tree.Kind.METHOD) {
+            return null;
+        }
+        MethodTree method = (MethodTree) member;
+        String name = method.getName().toString();
+        if (SCHEDULE_METHOD.equals(name) || DRAIN_METHOD.equals(name)) {
+            return name;
+        }
+        boolean setter = name.startsWith("set") && name.endsWith(SETTER_SUFFIX) // NOI18N
+                && name.length() > "set".length() + SETTER_SUFFIX.length() // NOI18N
+                && method.getParameters().size() == 1
+                && !isPlainSetter(name);
+        return setter ? name : null;
+    }
+
+    /** A slot or setter of a removed field, as long as it is exactly the generated one. */
+    @Override
+    protected boolean isLeftover(String name, String normalizedSource) {
+        if (name.endsWith(SLOT_SUFFIX)) {
+            return new Member(name, null, "private final AtomicReference<Object> " + name // NOI18N
+                    + " = new AtomicReference<Object>(" + NO_VALUE_FIELD + ");").matches(normalizedSource); // NOI18N
+        }
+        if (!name.startsWith("set") || !name.endsWith(SETTER_SUFFIX)) { // NOI18N
+            return false;
+        }
+        Matcher matcher = LEFTOVER_SETTER.matcher(normalizedSource);
+        if (!matcher.matches() || !matcher.group(1).equals(name)) {
+            return false;
+        }
+        String slot = matcher.group(2);
+        String property = name.substring("set".length(), name.length() - SETTER_SUFFIX.length()); // NOI18N
+        return Character.toUpperCase(slot.charAt(0)) == property.charAt(0)
+                && slot.substring(1).equals(property.substring(1));
+    }
+
+    /** The plain setter of a field whose name ends with "Async" is not ours. */
+    private boolean isPlainSetter(String name) {
+        for (PropertyField field : fields) {
+            if (AccessorConventions.getSetterName(field.getName()).equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected Map<String, Member> getExpectedMembers() {
+        Map<String, Member> map = new LinkedHashMap<>(fields.size() * 2 + 4);
+        map.put(NO_VALUE_FIELD, new Member(NO_VALUE_FIELD, null,
+                "private static final Object " + NO_VALUE_FIELD + " = new Object();")); // NOI18N
+        map.put(SCHEDULED_FIELD, new Member(SCHEDULED_FIELD, null,
+                "private final AtomicBoolean " + SCHEDULED_FIELD + " = new AtomicBoolean();")); // NOI18N
+        for (PropertyField field : fields) {
+            String name = getSlotName(field);
+            map.put(name, new Member(name, field, "private final AtomicReference<Object> " + name // NOI18N
+                    + " = new AtomicReference<Object>(" + NO_VALUE_FIELD + ");")); // NOI18N
+        }
+        for (PropertyField field : fields) {
+            String name = getAsyncSetterName(field);
+            map.put(name, new Member(name, field, "public final void " + name // NOI18N
+                    + "(" + field.getValueType() + " value) " + createAsyncSetterBody(field))); // NOI18N
+        }
+        map.put(SCHEDULE_METHOD, new Member(SCHEDULE_METHOD, null,
+                "private void " + SCHEDULE_METHOD + "() " + createScheduleBody())); // NOI18N
+        map.put(DRAIN_METHOD, new Member(DRAIN_METHOD, null,
+                "@SuppressWarnings(\"unchecked\") private void " + DRAIN_METHOD + "() " + createDrainBody())); // NOI18N
+        return map;
+    }
+
+    @Override
+    protected Tree createMember(Member member) {
+        if (member.field != null) {
+            return member.name.equals(getSlotName(member.field))
+                    ? createSlot(member.field)
+                    : createAsyncSetter(member.field);
+        }
+        switch (member.name) {
+            case NO_VALUE_FIELD:
+                return make.Variable(
+                        make.Modifiers(EnumSet.of(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL),
+                                Collections.<AnnotationTree>emptyList()),
+                        NO_VALUE_FIELD,
+                        make.Identifier("Object"), // NOI18N
+                        make.NewClass(null, Collections.<ExpressionTree>emptyList(),
+                                make.Identifier("Object"), // NOI18N
+                                Collections.<ExpressionTree>emptyList(), null));
+            case SCHEDULED_FIELD:
+                return make.Variable(
+                        make.Modifiers(EnumSet.of(Modifier.PRIVATE, Modifier.FINAL),
+                                Collections.<AnnotationTree>emptyList()),
+                        SCHEDULED_FIELD,
+                        make.QualIdent(ATOMIC_BOOLEAN),
+                        make.NewClass(null, Collections.<ExpressionTree>emptyList(),
+                                make.QualIdent(ATOMIC_BOOLEAN),
+                                Collections.<ExpressionTree>emptyList(), null));
+            case SCHEDULE_METHOD:
+                return createMethod(EnumSet.of(Modifier.PRIVATE), Collections.<AnnotationTree>emptyList(),
+                        SCHEDULE_METHOD, Collections.<VariableTree>emptyList(), createScheduleBody());
+            default:
+                AnnotationTree suppressWarnings = make.Annotation(make.Identifier("SuppressWarnings"), // NOI18N
+                        Collections.singletonList(make.Literal("unchecked"))); // NOI18N
+                return createMethod(EnumSet.of(Modifier.PRIVATE), Collections.singletonList(suppressWarnings),
+                        DRAIN_METHOD, Collections.<VariableTree>emptyList(), createDrainBody());
+        }
+    }
+
+    private VariableTree createSlot(PropertyField field) {
+        return make.Variable(
+                make.Modifiers(EnumSet.of(Modifier.PRIVATE, Modifier.FINAL),
+                        Collections.<AnnotationTree>emptyList()),
+                getSlotName(field),
+                createSlotType(),
+                make.NewClass(null, Collections.<ExpressionTree>emptyList(),
+                        createSlotType(),
+                        Collections.singletonList(make.Identifier(NO_VALUE_FIELD)), null));
+    }
+
+    private MethodTree createAsyncSetter(PropertyField field) {
+        VariableTree parameter = make.Variable(
+                make.Modifiers(new HashSet<Modifier>(), Collections.<AnnotationTree>emptyList()),
+                "value", // NOI18N
+                make.Type(field.getQualifiedValueType()),
+                null);
+        return createMethod(EnumSet.of(Modifier.PUBLIC, Modifier.FINAL), Collections.<AnnotationTree>emptyList(),
+                getAsyncSetterName(field), Collections.singletonList(parameter), createAsyncSetterBody(field));
+    }
+
+    private MethodTree createMethod(Set<Modifier> modifiers, List<AnnotationTree> annotations,
+            String name, List<VariableTree> parameters, String bodyText) {
+        return make.Method(
+                make.Modifiers(modifiers, annotations),
+                name,
+                make.QualIdent("void"), // NOI18N
+                Collections.<TypeParameterTree>emptyList(),
+                parameters,
+                Collections.<ExpressionTree>emptyList(),
+                bodyText,
+                null);
+    }
+
+    /** {@code AtomicReference<Object>}, also used as the class to instantiate. */
+    private ExpressionTree createSlotType() {
+        return (ExpressionTree) make.ParameterizedType(make.QualIdent(ATOMIC_REFERENCE),
+                Collections.singletonList(make.Identifier("Object"))); // NOI18N
+    }
+
+    private static String getSlotName(PropertyField field) {
+        return AccessorConventions.getPropertyName(field.getName()) + SLOT_SUFFIX;
+    }
+
+    private static String getAsyncSetterName(PropertyField field) {
+        return AccessorConventions.getSetterName(field.getName()) + SETTER_SUFFIX;
+    }
+
+    private static String createAsyncSetterBody(PropertyField field) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n")
+                .append(getSlotName(field)).append(".set(value);\n") // NOI18N
+                .append(SCHEDULE_METHOD).append("();\n}"); // NOI18N
+        return sb.toString();
+    }
+
+    private static String createScheduleBody() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n")
+                .append("if (").append(SCHEDULED_FIELD).append(".compareAndSet(false, true)) {\n") // NOI18N
+                .append("Platform.runLater(this::").append(DRAIN_METHOD).append(");\n") // NOI18N
+                .append("}\n}");
+        return sb.toString();
+    }
+
+    private String createDrainBody() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n")
+                .append(SCHEDULED_FIELD).append(".set(false);\n") // NOI18N
+                .append("Object value;\n"); // NOI18N
+        for (PropertyField field : fields) {
+            sb.append("value = ").append(getSlotName(field)) // NOI18N
+                    .append(".getAndSet(").append(NO_VALUE_FIELD).append(");\n") // NOI18N
+                    .append("if (value != ").append(NO_VALUE_FIELD).append(") {\n") // NOI18N
+                    .append(AccessorConventions.getSetterName(field.getName()))
+                    .append("((").append(AccessorConventions.getBoxedType(field.getValueType())) // NOI18N
+                    .append(") value);\n") // NOI18N
+                    .append("}\n");
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+
+}
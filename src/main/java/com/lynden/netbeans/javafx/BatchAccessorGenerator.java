@@ -0,0 +1,325 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.api.java.source.CancellableTask;
+import org.netbeans.api.java.source.ClasspathInfo;
+import org.netbeans.api.java.source.CompilationController;
+import org.netbeans.api.java.source.JavaSource;
+import org.netbeans.api.java.source.ModificationResult;
+import org.netbeans.api.java.source.WorkingCopy;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.api.progress.ProgressHandleFactory;
+import org.openide.DialogDisplayer;
+import org.openide.NotifyDescriptor;
+import org.openide.filesystems.FileObject;
+import org.openide.util.Cancellable;
+import org.openide.util.Exceptions;
+import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Generates the accessors of every class with property fields found under a
+ * set of folders. Files are processed one chunk after the other, since the
+ * parser lock serializes the modification tasks anyway, and the changes of
+ * each chunk are committed as soon as it is done, so at most one chunk of
+ * changes is held in memory. The run is not atomic: cancelling it, or a
+ * failure, keeps the chunks already committed and drops the current one.
+ *
+ * In inspection mode nothing is changed, the fields with missing or stale
+ * accessors are listed in the Output window instead. Either way, only the
+ * files the Java index reports as referencing a property type are parsed.
+ *
+ */
+class BatchAccessorGenerator implements Runnable, Cancellable {
+
+    /** Files sharing a classpath are parsed together in chunks of this size. */
+    private static final int FILES_PER_CHUNK = 32;
+
+    private static final RequestProcessor COORDINATOR
+            = new RequestProcessor(BatchAccessorGenerator.class.getName(), 1);
+
+    private final Collection<FileObject> roots;
+    private final boolean inspectOnly;
+    private final GenerationBudget budget = new GenerationBudget(0);
+    private final List<AccessorReport.Problem> problems = new ArrayList<>();
+    private int processed;
+    private ProgressHandle handle;
+
+    private BatchAccessorGenerator(Collection<FileObject> roots, boolean inspectOnly) {
+        this.roots = roots;
+        this.inspectOnly = inspectOnly;
+    }
+
+    /** Starts generating the accessors under the given folders or files. */
+    static void start(Collection<FileObject> roots) {
+        COORDINATOR.post(new BatchAccessorGenerator(roots, false));
+    }
+
+    /** Starts checking the accessors under the given folders or files. */
+    static void inspect(Collection<FileObject> roots) {
+        COORDINATOR.post(new BatchAccessorGenerator(roots, true));
+    }
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        handle = ProgressHandleFactory.createHandle(NbBundle.getMessage(BatchAccessorGenerator.class,
+                inspectOnly ? "LBL_InspectingAccessors" : "LBL_GeneratingAccessors"), this);
+        handle.start();
+        try {
+            List<FileObject> allFiles = collectJavaFiles(roots);
+            List<List<FileObject>> chunks = partition(PropertyReferenceIndex.filter(allFiles));
+            int queued = 0;
+            for (List<FileObject> chunk : chunks) {
+                queued += chunk.size();
+            }
+            handle.switchToDeterminate(Math.max(1, queued));
+
+            int changed = 0;
+            for (List<FileObject> chunk : chunks) {
+                if (budget.isCancelled()) {
+                    break;
+                }
+                changed += processChunk(chunk);
+            }
+            StageStatistics.logSummary();
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (inspectOnly) {
+                if (!budget.isCancelled()) {
+                    AccessorReport.show(problems, NbBundle.getMessage(BatchAccessorGenerator.class,
+                            "MSG_InspectionSummary", problems.size(), queued, allFiles.size(), elapsed));
+                }
+                return;
+            }
+            String message = budget.isCancelled()
+                    ? NbBundle.getMessage(BatchAccessorGenerator.class, "MSG_GenerationCancelled", changed, elapsed)
+                    : NbBundle.getMessage(BatchAccessorGenerator.class, "MSG_GenerationSummary",
+                            changed, queued, elapsed);
+            DialogDisplayer.getDefault().notifyLater(
+                    new NotifyDescriptor.Message(message, NotifyDescriptor.INFORMATION_MESSAGE));
+        } catch (IOException ex) {
+            Exceptions.printStackTrace(ex);
+        } finally {
+            handle.finish();
+        }
+    }
+
+    @Override
+    public boolean cancel() {
+        budget.cancel();
+        return true;
+    }
+
+    private static List<FileObject> collectJavaFiles(Collection<FileObject> roots) {
+        Set<FileObject> files = new LinkedHashSet<>();
+        for (FileObject root : roots) {
+            if (root.isData()) {
+                if ("java".equals(root.getExt())) { // NOI18N
+                    files.add(root);
+                }
+                continue;
+            }
+            Enumeration<? extends FileObject> data = root.getData(true);
+            while (data.hasMoreElements()) {
+                FileObject file = data.nextElement();
+                if ("java".equals(file.getExt())) { // NOI18N
+                    files.add(file);
+                }
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    /**
+     * Groups the files by source root, so each chunk shares one classpath.
+     * Files outside of any source root cannot be parsed and are left out.
+     */
+    private static List<List<FileObject>> partition(List<FileObject> files) {
+        Map<FileObject, List<FileObject>> byRoot = new LinkedHashMap<>();
+        for (FileObject file : files) {
+            ClassPath sourcePath = ClassPath.getClassPath(file, ClassPath.SOURCE);
+            FileObject root = sourcePath == null ? null : sourcePath.findOwnerRoot(file);
+            if (root == null) {
+                continue;
+            }
+            List<FileObject> list = byRoot.get(root);
+            if (list == null) {
+                list = new ArrayList<>();
+                byRoot.put(root, list);
+            }
+            list.add(file);
+        }
+        List<List<FileObject>> chunks = new ArrayList<>();
+        for (List<FileObject> list : byRoot.values()) {
+            for (int i = 0; i < list.size(); i += FILES_PER_CHUNK) {
+                chunks.add(list.subList(i, Math.min(i + FILES_PER_CHUNK, list.size())));
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Checks or generates the files of one chunk, committing the changes
+     * unless the run was cancelled meanwhile.
+     *
+     * @return the number of files changed
+     */
+    private int processChunk(List<FileObject> files) throws IOException {
+        JavaSource javaSource = JavaSource.create(ClasspathInfo.create(files.get(0)), files);
+        if (javaSource == null) {
+            return 0;
+        }
+        if (inspectOnly) {
+            javaSource.runUserActionTask(new CheckTask(), true);
+            return 0;
+        }
+        ModificationResult result = javaSource.runModificationTask(new FileTask());
+        if (budget.isCancelled()) {
+            return 0;
+        }
+        result.commit();
+        return result.getModifiedFileObjects().size();
+    }
+
+    private class FileTask implements CancellableTask<WorkingCopy> {
+
+        @Override
+        public void run(WorkingCopy wc) throws IOException {
+            try {
+                generate(wc);
+            } catch (GenerationBudget.CancelledException ex) {
+                // the results are discarded by the coordinator
+            }
+        }
+
+        private void generate(WorkingCopy wc) throws IOException {
+            budget.check();
+            StageTimer timer = StageTimer.start(StageTimer.Stage.PARSE, wc.getFileObject().getNameExt());
+            try {
+                wc.toPhase(JavaSource.Phase.ELEMENTS_RESOLVED);
+            } finally {
+                timer.end();
+            }
+            PropertyTypeClassifier classifier = PropertyTypeClassifier.forCompilation(wc);
+            Set<TypeElement> imports = new HashSet<>();
+            for (TreePath path : TreeHelper.getClassPaths(wc.getCompilationUnit())) {
+                Element element = wc.getTrees().getElement(path);
+                if (element == null || !element.getKind().isClass()) {
+                    continue;
+                }
+                budget.check();
+                timer = StageTimer.start(StageTimer.Stage.ANALYZE, element.toString());
+                List<PropertyField> fields = classifier.getPropertyFields(wc, path);
+                timer.properties(fields.size()).end();
+                if (!fields.isEmpty()) {
+                    int position = ((ClassTree) path.getLeaf()).getMembers().size();
+                    JavaFxBeanHelper.generateAccessors(wc, path, position, fields, budget, imports);
+                }
+            }
+            JavaFxBeanHelper.addImports(wc, imports);
+            handle.progress(wc.getFileObject().getNameExt(), ++processed);
+        }
+
+        @Override
+        public void cancel() {
+            // the whole run is cancelled through the progress handle
+        }
+    }
+
+    /** Collects the fields with invalid accessors of every class of a file. */
+    private class CheckTask implements CancellableTask<CompilationController> {
+
+        @Override
+        public void run(CompilationController cc) throws IOException {
+            if (budget.isCancelled()) {
+                return;
+            }
+            cc.toPhase(JavaSource.Phase.ELEMENTS_RESOLVED);
+            for (TreePath path : TreeHelper.getClassPaths(cc.getCompilationUnit())) {
+                if (budget.isCancelled()) {
+                    return;
+                }
+                Map<String, List<String>> invalid = AccessorHint.findInvalidAccessors(cc, path);
+                if (invalid == null || invalid.isEmpty()) {
+                    continue;
+                }
+                String className = cc.getTrees().getElement(path).toString();
+                Map<String, List<String>> inherited = new LinkedHashMap<>(invalid);
+                for (Tree member : ((ClassTree) path.getLeaf()).getMembers()) {
+                    if (member.getKind() != Tree.Kind.VARIABLE) {
+                        continue;
+                    }
+                    String fieldName = ((VariableTree) member).getName().toString();
+                    List<String> names = inherited.remove(fieldName);
+                    if (names != null) {
+                        addProblem(cc, member, className, fieldName, names);
+                    }
+                }
+                // fields of a superclass are reported on the class
+                for (Map.Entry<String, List<String>> entry : inherited.entrySet()) {
+                    addProblem(cc, path.getLeaf(), className, entry.getKey(), entry.getValue());
+                }
+            }
+            handle.progress(cc.getFileObject().getNameExt(), ++processed);
+        }
+
+        private void addProblem(CompilationController cc, Tree tree, String className,
+                String fieldName, List<String> names) {
+            CompilationUnitTree cu = cc.getCompilationUnit();
+            SourcePositions sp = cc.getTrees().getSourcePositions();
+            int line = (int) cu.getLineMap().getLineNumber(sp.getStartPosition(cu, tree));
+            problems.add(new AccessorReport.Problem(cc.getFileObject(), line,
+                    NbBundle.getMessage(BatchAccessorGenerator.class, "MSG_InvalidAccessors",
+                            className, fieldName, names.toString())));
+        }
+
+        @Override
+        public void cancel() {
+            // the whole run is cancelled through the progress handle
+        }
+    }
+
+}
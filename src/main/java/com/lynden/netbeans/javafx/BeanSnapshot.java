@@ -0,0 +1,278 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.tree.AnnotationTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.TypeParameterTree;
+import com.sun.source.tree.VariableTree;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import org.netbeans.api.java.source.TreeMaker;
+
+/**
+ * An immutable copy of the property values of a bean, which background
+ * threads can read and share without locks:
+ *
+ * <pre>
+ * public static final class Snapshot {
+ *     private final String name;
+ *     public Snapshot(String name) { ... }
+ *     public String name() { ... }
+ * }
+ *
+ * public final Snapshot snapshot() {
+ *     return new Snapshot(getName());
+ * }
+ *
+ * public final void apply(Snapshot snapshot) {
+ *     setName(snapshot.name());
+ * }
+ * </pre>
+ *
+ * {@code snapshot()} and {@code apply(Snapshot)} go through the accessors, so
+ * they must be called on the thread owning the properties, usually the FX
+ * thread. The values of list, set and map properties are copied into an
+ * unmodifiable plain collection, and copied into a new observable collection
+ * again by {@code apply}, so the bean never shares a collection with a
+ * snapshot; any other value is not deep copied.
+ *
+ */
+final class BeanSnapshot extends GeneratedMembers {
+
+    private static final String SNAPSHOT_CLASS = "Snapshot"; // NOI18N
+    private static final String SNAPSHOT_METHOD = "snapshot"; // NOI18N
+    private static final String APPLY_METHOD = "apply"; // NOI18N
+
+    BeanSnapshot(TreeMaker make, TypeElement bean, List<PropertyField> fields) {
+        super(make, bean, fields);
+    }
+
+    @Override
+    protected String[] getImports() {
+        Set<String> imports = new LinkedHashSet<>();
+        for (PropertyField field : fields) {
+            ObservableCollection collection = ObservableCollection.of(field);
+            if (collection != null) {
+                imports.addAll(Arrays.asList(collection.getImports()));
+                imports.add(ObservableCollection.COLLECTIONS);
+            }
+        }
+        return imports.toArray(new String[imports.size()]);
+    }
+
+    @Override
+    protected String getGeneratedName(Tree member) {
+        if (member.getKind() == Tree.Kind.CLASS) {
+            return ((ClassTree) member).getSimpleName().contentEquals(SNAPSHOT_CLASS) ? SNAPSHOT_CLASS : null;
+        }
+        if (member.getKind() != Tree.Kind.METHOD) {
+            return null;
+        }
+        MethodTree method = (MethodTree) member;
+        String name = method.getName().toString();
+        if (SNAPSHOT_METHOD.equals(name) && method.getParameters().isEmpty()) {
+            return name;
+        }
+        if (APPLY_METHOD.equals(name) && method.getParameters().size() == 1) {
+            String type = method.getParameters().get(0).getType().toString();
+            return type.equals(SNAPSHOT_CLASS) || type.endsWith("." + SNAPSHOT_CLASS) ? name : null; // NOI18N
+        }
+        return null;
+    }
+
+    @Override
+    protected Map<String, Member> getExpectedMembers() {
+        Map<String, Member> map = new LinkedHashMap<>(4);
+        map.put(SNAPSHOT_CLASS, new Member(SNAPSHOT_CLASS, null, createSnapshotClassText()));
+        map.put(SNAPSHOT_METHOD, new Member(SNAPSHOT_METHOD, null, "public final " + SNAPSHOT_CLASS // NOI18N
+                + " " + SNAPSHOT_METHOD + "() " + createSnapshotBody())); // NOI18N
+        map.put(APPLY_METHOD, new Member(APPLY_METHOD, null, "public final void " + APPLY_METHOD // NOI18N
+                + "(" + SNAPSHOT_CLASS + " snapshot) " + createApplyBody())); // NOI18N
+        return map;
+    }
+
+    @Override
+    protected Tree createMember(Member member) {
+        switch (member.name) {
+            case SNAPSHOT_CLASS:
+                return createSnapshotClass();
+            case SNAPSHOT_METHOD:
+                return createMethod(EnumSet.of(Modifier.PUBLIC, Modifier.FINAL), SNAPSHOT_METHOD,
+                        make.Identifier(SNAPSHOT_CLASS), Collections.<VariableTree>emptyList(),
+                        createSnapshotBody());
+            default:
+                return createMethod(EnumSet.of(Modifier.PUBLIC, Modifier.FINAL), APPLY_METHOD,
+                        make.QualIdent("void"), // NOI18N
+                        Collections.singletonList(createVariable(Collections.<Modifier>emptySet(),
+                                "snapshot", make.Identifier(SNAPSHOT_CLASS))), // NOI18N
+                        createApplyBody());
+        }
+    }
+
+    private ClassTree createSnapshotClass() {
+        List<Tree> members = new ArrayList<>(fields.size() * 2 + 1);
+        List<VariableTree> parameters = new ArrayList<>(fields.size());
+        for (PropertyField field : fields) {
+            members.add(createVariable(EnumSet.of(Modifier.PRIVATE, Modifier.FINAL),
+                    getComponentName(field), make.Type(getQualifiedComponentType(field))));
+            parameters.add(createVariable(Collections.<Modifier>emptySet(),
+                    getComponentName(field), make.Type(getQualifiedComponentType(field))));
+        }
+        members.add(createMethod(EnumSet.of(Modifier.PUBLIC), "<init>", null, // NOI18N
+                parameters, createConstructorBody()));
+        for (PropertyField field : fields) {
+            members.add(createMethod(EnumSet.of(Modifier.PUBLIC), getComponentName(field),
+                    make.Type(getQualifiedComponentType(field)), Collections.<VariableTree>emptyList(),
+                    createComponentBody(field)));
+        }
+        return make.Class(
+                make.Modifiers(EnumSet.of(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL),
+                        Collections.<AnnotationTree>emptyList()),
+                SNAPSHOT_CLASS,
+                Collections.<TypeParameterTree>emptyList(),
+                null,
+                Collections.<Tree>emptyList(),
+                members);
+    }
+
+    private VariableTree createVariable(Set<Modifier> modifiers, String name, Tree type) {
+        return make.Variable(
+                make.Modifiers(new HashSet<>(modifiers), Collections.<AnnotationTree>emptyList()),
+                name,
+                type,
+                null);
+    }
+
+    private MethodTree createMethod(Set<Modifier> modifiers, String name, Tree returnType,
+            List<VariableTree> parameters, String bodyText) {
+        return make.Method(
+                make.Modifiers(modifiers, Collections.<AnnotationTree>emptyList()),
+                name,
+                returnType,
+                Collections.<TypeParameterTree>emptyList(),
+                parameters,
+                Collections.<ExpressionTree>emptyList(),
+                bodyText,
+                null);
+    }
+
+    /** The name of the snapshot field and accessor, the property name like a record component. */
+    private static String getComponentName(PropertyField field) {
+        return AccessorConventions.getPropertyName(field.getName());
+    }
+
+    /** The value type, or the plain collection type for a list, set or map property. */
+    private static String getComponentType(PropertyField field) {
+        ObservableCollection collection = ObservableCollection.of(field);
+        return collection == null ? field.getValueType() : collection.getPlainType(field);
+    }
+
+    private static String getQualifiedComponentType(PropertyField field) {
+        ObservableCollection collection = ObservableCollection.of(field);
+        return collection == null ? field.getQualifiedValueType() : collection.getQualifiedPlainType(field);
+    }
+
+    private String createSnapshotClassText() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("public static final class ").append(SNAPSHOT_CLASS).append(" {\n"); // NOI18N
+        for (PropertyField field : fields) {
+            sb.append("private final ").append(getComponentType(field)).append(' ') // NOI18N
+                    .append(getComponentName(field)).append(";\n"); // NOI18N
+        }
+        sb.append("public ").append(SNAPSHOT_CLASS).append('('); // NOI18N
+        String separator = ""; // NOI18N
+        for (PropertyField field : fields) {
+            sb.append(separator).append(getComponentType(field)).append(' ').append(getComponentName(field));
+            separator = ", "; // NOI18N
+        }
+        sb.append(") ").append(createConstructorBody()).append('\n'); // NOI18N
+        for (PropertyField field : fields) {
+            sb.append("public ").append(getComponentType(field)).append(' ') // NOI18N
+                    .append(getComponentName(field)).append("() ") // NOI18N
+                    .append(createComponentBody(field)).append('\n');
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private String createConstructorBody() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        for (PropertyField field : fields) {
+            sb.append("this.").append(getComponentName(field)) // NOI18N
+                    .append(" = ").append(getComponentName(field)).append(";\n"); // NOI18N
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+
+    private static String createComponentBody(PropertyField field) {
+        return "{\nreturn " + getComponentName(field) + ";\n}"; // NOI18N
+    }
+
+    private String createSnapshotBody() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n")
+                .append("return new ").append(SNAPSHOT_CLASS).append('('); // NOI18N
+        String separator = ""; // NOI18N
+        for (PropertyField field : fields) {
+            String getter = AccessorConventions.getGetterName(field.getName(), field.getValueType()) + "()"; // NOI18N
+            ObservableCollection collection = ObservableCollection.of(field);
+            sb.append(separator).append(collection == null ? getter : collection.unmodifiableCopy(getter));
+            separator = ", "; // NOI18N
+        }
+        sb.append(");\n}"); // NOI18N
+        return sb.toString();
+    }
+
+    private String createApplyBody() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        for (PropertyField field : fields) {
+            String value = "snapshot." + getComponentName(field) + "()"; // NOI18N
+            ObservableCollection collection = ObservableCollection.of(field);
+            sb.append(AccessorConventions.getSetterName(field.getName()))
+                    .append('(').append(collection == null ? value : collection.wrap(value, value))
+                    .append(");\n"); // NOI18N
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,283 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.tree.AnnotationTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.TypeParameterTree;
+import com.sun.source.tree.VariableTree;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import org.netbeans.api.java.source.TreeMaker;
+
+/**
+ * Static members that let a {@code TableView} bind to the properties of a
+ * bean without {@code PropertyValueFactory}, which looks the property method
+ * up by reflection for every cell:
+ *
+ * <pre>
+ * public static final Map&lt;String, Function&lt;Person, ObservableValue&lt;?&gt;&gt;&gt; PROPERTY_ACCESSORS = createPropertyAccessors();
+ *
+ * public static &lt;T&gt; Callback&lt;TableColumn.CellDataFeatures&lt;Person, T&gt;, ObservableValue&lt;T&gt;&gt; cellValueFactory(String property) {
+ *     ...
+ * }
+ *
+ * public static Callback&lt;TableColumn.CellDataFeatures&lt;Person, String&gt;, ObservableValue&lt;String&gt;&gt; nameCellValueFactory() {
+ *     return features -&gt; features.getValue().nameProperty();
+ * }
+ * </pre>
+ *
+ * The members are only generated when the JavaFx controls are on the
+ * classpath.
+ *
+ */
+final class CellValueFactories extends GeneratedMembers {
+
+    static final String ACCESSORS_FIELD = "PROPERTY_ACCESSORS"; // NOI18N
+    private static final String CREATE_ACCESSORS = "createPropertyAccessors"; // NOI18N
+    private static final String CELL_VALUE_FACTORY = "cellValueFactory"; // NOI18N
+    private static final String FACTORY_SUFFIX = "CellValueFactory"; // NOI18N
+
+    private static final String MAP = "java.util.Map"; // NOI18N
+    private static final String FUNCTION = "java.util.function.Function"; // NOI18N
+    private static final String OBSERVABLE_VALUE = "javafx.beans.value.ObservableValue"; // NOI18N
+    private static final String CALLBACK = "javafx.util.Callback"; // NOI18N
+    private static final String TABLE_COLUMN = "javafx.scene.control.TableColumn"; // NOI18N
+
+    private static final String[] IMPORTS = {
+        MAP, "java.util.HashMap", "java.util.Collections", FUNCTION, // NOI18N
+        OBSERVABLE_VALUE, CALLBACK, TABLE_COLUMN
+    };
+
+    CellValueFactories(TreeMaker make, TypeElement bean, List<PropertyField> fields) {
+        super(make, bean, fields);
+    }
+
+    @Override
+    protected String[] getImports() {
+        return IMPORTS;
+    }
+
+    /**
+     * The name of a member which looks generated by this class, or
+     * {@code null}: the accessor table, its factory method and the static
+     * no argument {@code *CellValueFactory} methods. Factories which don't
+     * belong to a current field are only removed by {@link #isLeftover}.
+     */
+    @Override
+    protected String getGeneratedName(Tree member) {
+        if (member.getKind() == Tree.Kind.VARIABLE) {
+            String name = ((VariableTree) member).getName().toString();
+            return ACCESSORS_FIELD.equals(name) ? name : null;
+        }
+        if (member.getKind() != Tree.Kind.METHOD) {
+            return null;
+        }
+        MethodTree method = (MethodTree) member;
+        String name = method.getName().toString();
+        if (CREATE_ACCESSORS.equals(name) || CELL_VALUE_FACTORY.equals(name)) {
+            return name;
+        }
+        boolean factory = name.endsWith(FACTORY_SUFFIX) && name.length() > FACTORY_SUFFIX.length()
+                && method.getParameters().isEmpty()
+                && method.getModifiers().getFlags().contains(Modifier.STATIC);
+        return factory ? name : null;
+    }
+
+    /** The factory of a removed field, as long as it is exactly the generated one. */
+    @Override
+    protected boolean isLeftover(String name, String normalizedSource) {
+        if (!name.endsWith(FACTORY_SUFFIX)) {
+            return false;
+        }
+        String property = name.substring(0, name.length() - FACTORY_SUFFIX.length());
+        Matcher matcher = Pattern.compile("publicstaticCallback<TableColumn\\.CellDataFeatures<" // NOI18N
+                + Pattern.quote(beanName) + ",(.+)>,ObservableValue<(.+)>>" + Pattern.quote(name) // NOI18N
+                + "\\(\\)\\{returnfeatures->features\\.getValue\\(\\)\\." // NOI18N
+                + Pattern.quote(property + "Property") + "\\(\\);\\}").matcher(normalizedSource); // NOI18N
+        return matcher.matches() && matcher.group(1).equals(matcher.group(2));
+    }
+
+    @Override
+    protected Map<String, Member> getExpectedMembers() {
+        Map<String, Member> map = new LinkedHashMap<>(fields.size() + 4);
+        String accessorType = getAccessorType();
+        map.put(ACCESSORS_FIELD, new Member(ACCESSORS_FIELD, null, "public static final " + accessorType // NOI18N
+                + " " + ACCESSORS_FIELD + " = " + CREATE_ACCESSORS + "();")); // NOI18N
+        map.put(CREATE_ACCESSORS, new Member(CREATE_ACCESSORS, null, "private static " + accessorType // NOI18N
+                + " " + CREATE_ACCESSORS + "() " + createAccessorsBody())); // NOI18N
+        map.put(CELL_VALUE_FACTORY, new Member(CELL_VALUE_FACTORY, null, "@SuppressWarnings(\"unchecked\") public static <T> " // NOI18N
+                + getFactoryType("T") + " " + CELL_VALUE_FACTORY + "(String property) " // NOI18N
+                + createCellValueFactoryBody()));
+        for (PropertyField field : fields) {
+            String name = getFactoryName(field);
+            map.put(name, new Member(name, field, "public static " // NOI18N
+                    + getFactoryType(AccessorConventions.getObservableType(field.getValueType()))
+                    + " " + name + "() " + createFactoryBody(field))); // NOI18N
+        }
+        return map;
+    }
+
+    @Override
+    protected Tree createMember(Member member) {
+        if (member.field != null) {
+            return createFactoryMethod(member.field);
+        }
+        if (ACCESSORS_FIELD.equals(member.name)) {
+            return make.Variable(
+                    make.Modifiers(EnumSet.of(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL),
+                            Collections.<AnnotationTree>emptyList()),
+                    ACCESSORS_FIELD,
+                    createAccessorType(),
+                    make.MethodInvocation(Collections.<ExpressionTree>emptyList(),
+                            make.Identifier(CREATE_ACCESSORS),
+                            Collections.<ExpressionTree>emptyList()));
+        }
+        if (CREATE_ACCESSORS.equals(member.name)) {
+            return make.Method(
+                    make.Modifiers(EnumSet.of(Modifier.PRIVATE, Modifier.STATIC),
+                            Collections.<AnnotationTree>emptyList()),
+                    CREATE_ACCESSORS,
+                    createAccessorType(),
+                    Collections.<TypeParameterTree>emptyList(),
+                    Collections.<VariableTree>emptyList(),
+                    Collections.<ExpressionTree>emptyList(),
+                    createAccessorsBody(),
+                    null);
+        }
+        VariableTree parameter = make.Variable(
+                make.Modifiers(new HashSet<Modifier>(), Collections.<AnnotationTree>emptyList()),
+                "property", // NOI18N
+                make.Identifier("String"), // NOI18N
+                null);
+        AnnotationTree suppressWarnings = make.Annotation(make.Identifier("SuppressWarnings"), // NOI18N
+                Collections.singletonList(make.Literal("unchecked"))); // NOI18N
+        return make.Method(
+                make.Modifiers(EnumSet.of(Modifier.PUBLIC, Modifier.STATIC),
+                        Collections.singletonList(suppressWarnings)),
+                CELL_VALUE_FACTORY,
+                createFactoryType(make.Identifier("T"), make.Identifier("T")), // NOI18N
+                Collections.singletonList(make.TypeParameter("T", Collections.<ExpressionTree>emptyList())), // NOI18N
+                Collections.singletonList(parameter),
+                Collections.<ExpressionTree>emptyList(),
+                createCellValueFactoryBody(),
+                null);
+    }
+
+    private MethodTree createFactoryMethod(PropertyField field) {
+        String observableType = AccessorConventions.getObservableType(field.getQualifiedValueType());
+        return make.Method(
+                make.Modifiers(EnumSet.of(Modifier.PUBLIC, Modifier.STATIC),
+                        Collections.<AnnotationTree>emptyList()),
+                getFactoryName(field),
+                createFactoryType(make.Type(observableType), make.Type(observableType)),
+                Collections.<TypeParameterTree>emptyList(),
+                Collections.<VariableTree>emptyList(),
+                Collections.<ExpressionTree>emptyList(),
+                createFactoryBody(field),
+                null);
+    }
+
+    /** {@code Map<String, Function<Bean, ObservableValue<?>>>} */
+    private Tree createAccessorType() {
+        return make.ParameterizedType(make.QualIdent(MAP), Arrays.asList(
+                make.Identifier("String"), // NOI18N
+                make.ParameterizedType(make.QualIdent(FUNCTION), Arrays.asList(
+                        make.Identifier(beanName),
+                        make.ParameterizedType(make.QualIdent(OBSERVABLE_VALUE), Collections.singletonList(
+                                make.Wildcard(Tree.Kind.UNBOUNDED_WILDCARD, null)))))));
+    }
+
+    /**
+     * {@code Callback<TableColumn.CellDataFeatures<Bean, T>, ObservableValue<T>>};
+     * a tree can't be used twice, so {@code T} is given as two copies.
+     */
+    private Tree createFactoryType(Tree cellType, Tree observedType) {
+        return make.ParameterizedType(make.QualIdent(CALLBACK), Arrays.asList(
+                make.ParameterizedType(make.MemberSelect(make.QualIdent(TABLE_COLUMN), "CellDataFeatures"), // NOI18N
+                        Arrays.asList(make.Identifier(beanName), cellType)),
+                make.ParameterizedType(make.QualIdent(OBSERVABLE_VALUE), Collections.singletonList(observedType))));
+    }
+
+    private String getAccessorType() {
+        return "Map<String, Function<" + beanName + ", ObservableValue<?>>>"; // NOI18N
+    }
+
+    private String getFactoryType(String valueType) {
+        return "Callback<TableColumn.CellDataFeatures<" + beanName + ", " + valueType // NOI18N
+                + ">, ObservableValue<" + valueType + ">>"; // NOI18N
+    }
+
+    private static String getFactoryName(PropertyField field) {
+        return AccessorConventions.getPropertyName(field.getName()) + FACTORY_SUFFIX;
+    }
+
+    private String createAccessorsBody() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n")
+                .append(getAccessorType()).append(" accessors = new HashMap<>(") // NOI18N
+                .append(fields.size() * 4 / 3 + 1).append(");\n"); // NOI18N
+        for (PropertyField field : fields) {
+            sb.append("accessors.put(\"").append(AccessorConventions.getPropertyName(field.getName())) // NOI18N
+                    .append("\", ").append(beanName).append("::") // NOI18N
+                    .append(AccessorConventions.getPropertyMethodName(field.getName())).append(");\n"); // NOI18N
+        }
+        sb.append("return Collections.unmodifiableMap(accessors);\n}"); // NOI18N
+        return sb.toString();
+    }
+
+    private String createCellValueFactoryBody() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n")
+                .append("Function<").append(beanName).append(", ObservableValue<?>> accessor = ") // NOI18N
+                .append(ACCESSORS_FIELD).append(".get(property);\n") // NOI18N
+                .append("if (accessor == null) {\n") // NOI18N
+                .append("throw new IllegalArgumentException(\"No property \" + property);\n") // NOI18N
+                .append("}\n")
+                .append("return features -> (ObservableValue<T>) accessor.apply(features.getValue());\n}"); // NOI18N
+        return sb.toString();
+    }
+
+    private static String createFactoryBody(PropertyField field) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n")
+                .append("return features -> features.getValue().") // NOI18N
+                .append(AccessorConventions.getPropertyMethodName(field.getName()))
+                .append("();\n}"); // NOI18N
+        return sb.toString();
+    }
+
+}
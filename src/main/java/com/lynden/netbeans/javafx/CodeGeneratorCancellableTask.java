@@ -28,6 +28,11 @@ import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.util.TreePath;
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.lang.model.element.TypeElement;
 import javax.swing.text.JTextComponent;
 import org.netbeans.api.java.source.CancellableTask;
 import org.netbeans.api.java.source.JavaSource;
@@ -38,32 +43,92 @@ import org.netbeans.api.java.source.WorkingCopy;
  * @author Francesco Illuminati <fillumina@gmail.com>
  */
 abstract class CodeGeneratorCancellableTask implements CancellableTask<WorkingCopy> {
-    private final JTextComponent textComponent;
+    private static final Logger LOG = Logger.getLogger(CodeGeneratorCancellableTask.class.getName());
 
+    private final int caretOffset;
+    private final GenerationBudget budget;
+    private volatile boolean aborted;
+
+    /**
+     * Must be called in the event dispatch thread, the caret position is read
+     * here so that the task itself can run in any thread.
+     */
     public CodeGeneratorCancellableTask(JTextComponent textComponent) {
-        this.textComponent = textComponent;
+        this.caretOffset = textComponent.getCaretPosition();
+        this.budget = new GenerationBudget(GeneratorOptions.getTimeBudgetMillis());
     }
 
     @Override
     public void run(WorkingCopy workingCopy) throws IOException {
-        workingCopy.toPhase(JavaSource.Phase.RESOLVED);
-        workingCopy.toPhase(JavaSource.Phase.ELEMENTS_RESOLVED);
-        generate(workingCopy);
+        budget.start();
+        try {
+            budget.check();
+            StageTimer timer = StageTimer.start(StageTimer.Stage.PARSE,
+                    workingCopy.getFileObject().getNameExt());
+            try {
+                // field and member signatures are all the generation needs,
+                // method bodies are never attributed
+                workingCopy.toPhase(JavaSource.Phase.ELEMENTS_RESOLVED);
+            } finally {
+                timer.end();
+            }
+            budget.check();
+            generate(workingCopy);
+        } catch (GenerationBudget.CancelledException ex) {
+            aborted = true;
+            LOG.log(Level.INFO, "Accessor generation aborted: {0}", ex.getMessage()); // NOI18N
+        }
     }
 
+    /**
+     * Generates the code of one class. The types its code refers to by
+     * simple name go to {@code imports}; they are imported once every class
+     * of the run is generated.
+     */
     public abstract void generateCode(WorkingCopy workingCopy, TreePath path,
-            int position);
+            int position, Set<TypeElement> imports);
+
+    /** The budget the steps of {@link #generateCode} must check. */
+    protected GenerationBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * @return {@code true} if the run was cancelled or ran out of time, in
+     * which case its modification result must not be committed
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
 
+    /**
+     * Generates the accessors of the class at the caret or, in whole file
+     * mode, of every class of the file; the accessors of the other classes
+     * go at their end.
+     */
     private void generate(WorkingCopy wc) throws IOException {
-        final int caretOffset = textComponent.getCaretPosition();
         TreePath path = wc.getTreeUtilities().pathFor(caretOffset);
         path = TreeHelper.getParentElementOfKind(Tree.Kind.CLASS, path);
-        int idx = TreeHelper.findClassMemberIndex(wc,(ClassTree) path.getLeaf(), caretOffset);
-        generateCode(wc, path, idx);
+        Set<TypeElement> imports = new HashSet<>();
+        if (GeneratorOptions.isWholeFile()) {
+            for (TreePath classPath : TreeHelper.getClassPaths(wc.getCompilationUnit())) {
+                budget.check();
+                int idx = path != null && path.getLeaf() == classPath.getLeaf()
+                        ? AnalysisCache.findClassMemberIndex(wc, classPath, caretOffset)
+                        : ((ClassTree) classPath.getLeaf()).getMembers().size();
+                generateCode(wc, classPath, idx, imports);
+            }
+        } else {
+            int idx = AnalysisCache.findClassMemberIndex(wc, path, caretOffset);
+            budget.check();
+            generateCode(wc, path, idx, imports);
+        }
+        JavaFxBeanHelper.addImports(wc, imports);
     }
 
     @Override
     public void cancel() {
+        budget.cancel();
     }
 
 }
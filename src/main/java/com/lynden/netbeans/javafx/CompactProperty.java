@@ -0,0 +1,199 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.tree.AnnotationTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.TypeParameterTree;
+import com.sun.source.tree.VariableTree;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import javax.lang.model.element.Modifier;
+import org.netbeans.api.java.source.TreeMaker;
+
+/**
+ * Rewrites the initializer of a property field from a
+ * {@code Simple*Property} to an anonymous {@code *PropertyBase} subclass,
+ * which doesn't store the name in every instance. The bean is still
+ * referenced, through the enclosing instance the anonymous class captures,
+ * so each property saves one reference field:
+ *
+ * <pre>
+ * private final StringProperty name = new StringPropertyBase() {
+ *     &#64;Override
+ *     public Object getBean() {
+ *         return Person.this;
+ *     }
+ *     &#64;Override
+ *     public String getName() {
+ *         return "name";
+ *     }
+ * };
+ * </pre>
+ *
+ */
+final class CompactProperty {
+
+    private static final String JAVAFX_PROPERTY_PACKAGE = "javafx.beans.property."; // NOI18N
+    private static final String SIMPLE = "Simple"; // NOI18N
+    private static final String PROPERTY = "Property"; // NOI18N
+
+    private CompactProperty() {
+    }
+
+    /**
+     * Replaces the {@code new Simple*Property(...)} initializers of the given
+     * fields declared by the class, when the field is declared with the
+     * matching writable property type. Fields of other types, or with any
+     * other initializer, are left alone; so are the fields that are already
+     * compact.
+     *
+     * @param skip names of the fields handled in another way, i.e. the lazy
+     * ones
+     * @return the updated class, or {@code classTree} itself if there was
+     * nothing to rewrite
+     */
+    static ClassTree rewriteFields(TreeMaker make, ClassTree classTree,
+            List<PropertyField> fields, Map<String, ?> skip) {
+        ClassTree result = classTree;
+        for (PropertyField field : fields) {
+            if (skip.containsKey(field.getName())
+                    || !field.getQualifiedPropertyType().startsWith(JAVAFX_PROPERTY_PACKAGE)) {
+                continue;
+            }
+            VariableTree variable = findField(result, field.getName());
+            if (variable == null
+                    || variable.getModifiers().getFlags().contains(Modifier.STATIC)
+                    || variable.getInitializer() == null
+                    || variable.getInitializer().getKind() != Tree.Kind.NEW_CLASS) {
+                continue;
+            }
+            NewClassTree creation = (NewClassTree) variable.getInitializer();
+            String baseType = creation.getClassBody() == null
+                    ? getBaseType(creation.getIdentifier().toString(), field)
+                    : null;
+            if (baseType == null) {
+                continue;
+            }
+            List<? extends ExpressionTree> arguments = creation.getArguments();
+            List<ExpressionTree> initialValue = arguments.size() == 1 || arguments.size() == 3
+                    ? Collections.<ExpressionTree>singletonList(arguments.get(arguments.size() - 1))
+                    : Collections.<ExpressionTree>emptyList();
+
+            NewClassTree compact = make.NewClass(null,
+                    Collections.<ExpressionTree>emptyList(),
+                    (ExpressionTree) make.Type(baseType),
+                    initialValue,
+                    createBody(make, classTree.getSimpleName().toString(), field));
+            VariableTree compactVariable = make.Variable(variable.getModifiers(),
+                    variable.getName(), variable.getType(), compact);
+
+            int index = result.getMembers().indexOf(variable);
+            result = make.removeClassMember(result, variable);
+            result = make.insertClassMember(result, index, compactVariable);
+        }
+        return result;
+    }
+
+    /**
+     * The base class matching the {@code Simple*Property} the field is
+     * created with, i.e. {@code ObjectPropertyBase<T>} for a
+     * {@code new SimpleObjectProperty<>()}, with the type arguments of the
+     * field. The field must be declared as the writable property type the
+     * base class extends, {@code ObjectProperty<T>} here, since anything else
+     * like {@code SimpleObjectProperty<T>} or {@code Property<T>} would no
+     * longer accept the new initializer.
+     *
+     * @return {@code null} if the field can't be made compact
+     */
+    private static String getBaseType(String implementation, PropertyField field) {
+        String rawImplementation = getRawType(implementation);
+        if (rawImplementation.startsWith(JAVAFX_PROPERTY_PACKAGE)) {
+            rawImplementation = rawImplementation.substring(JAVAFX_PROPERTY_PACKAGE.length());
+        }
+        if (rawImplementation.indexOf('.') != -1
+                || !rawImplementation.startsWith(SIMPLE) || !rawImplementation.endsWith(PROPERTY)
+                || rawImplementation.length() <= SIMPLE.length() + PROPERTY.length()) {
+            return null;
+        }
+        String propertyType = JAVAFX_PROPERTY_PACKAGE + rawImplementation.substring(SIMPLE.length());
+        String type = field.getQualifiedPropertyType();
+        if (!getRawType(type).equals(propertyType)) {
+            return null;
+        }
+        return propertyType + "Base" + type.substring(getRawType(type).length()); // NOI18N
+    }
+
+    private static String getRawType(String type) {
+        int typeArguments = type.indexOf('<');
+        return typeArguments == -1 ? type : type.substring(0, typeArguments);
+    }
+
+    private static ClassTree createBody(TreeMaker make, String className, PropertyField field) {
+        List<Tree> members = new ArrayList<>(2);
+        members.add(createMethod(make, "getBean", "Object", // NOI18N
+                "{\nreturn " + className + ".this;\n}")); // NOI18N
+        members.add(createMethod(make, "getName", "String", // NOI18N
+                "{\nreturn \"" + AccessorConventions.getPropertyName(field.getName()) + "\";\n}")); // NOI18N
+        return make.Class(make.Modifiers(EnumSet.noneOf(Modifier.class)),
+                "", // NOI18N
+                Collections.<TypeParameterTree>emptyList(),
+                null,
+                Collections.<Tree>emptyList(),
+                members);
+    }
+
+    private static MethodTree createMethod(TreeMaker make, String name, String returnType, String bodyText) {
+        AnnotationTree override = make.Annotation(make.Identifier("Override"), // NOI18N
+                Collections.<ExpressionTree>emptyList());
+        return make.Method(
+                make.Modifiers(EnumSet.of(Modifier.PUBLIC), Collections.singletonList(override)),
+                name,
+                make.Identifier(returnType),
+                Collections.<TypeParameterTree>emptyList(),
+                Collections.<VariableTree>emptyList(),
+                Collections.<ExpressionTree>emptyList(),
+                bodyText,
+                null);
+    }
+
+    private static VariableTree findField(ClassTree classTree, String name) {
+        for (Tree member : classTree.getMembers()) {
+            if (member.getKind() == Tree.Kind.VARIABLE
+                    && ((VariableTree) member).getName().contentEquals(name)) {
+                return (VariableTree) member;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,284 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.tree.AnnotationTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.TypeParameterTree;
+import com.sun.source.tree.VariableTree;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import org.netbeans.api.java.source.TreeMaker;
+
+/**
+ * {@code Externalizable} methods writing the property values in declaration
+ * order, primitives with the matching {@code DataOutput} method and anything
+ * else with {@code writeObject}, after a version tag:
+ *
+ * <pre>
+ * private static final int EXTERNAL_VERSION = 1282093781;
+ *
+ * &#64;Override
+ * public void writeExternal(ObjectOutput out) throws IOException {
+ *     out.writeInt(EXTERNAL_VERSION);
+ *     out.writeInt(getAge());
+ *     out.writeObject(getName());
+ * }
+ * </pre>
+ *
+ * List, set and map values are written as a copy in an {@code ArrayList},
+ * {@code HashSet} or {@code HashMap} and wrapped with {@code FXCollections}
+ * again when read, since the observable collections are not serializable.
+ * The version is a hash of the names and types of the fields, so it changes
+ * with the layout and {@code readExternal} rejects data written by another
+ * one. The members are only generated for a class with a public no argument
+ * constructor, which is made to implement {@code Externalizable}; the other
+ * values which are not primitives must be serializable.
+ *
+ */
+final class ExternalizableMembers extends GeneratedMembers {
+
+    private static final String VERSION_FIELD = "EXTERNAL_VERSION"; // NOI18N
+    private static final String WRITE_METHOD = "writeExternal"; // NOI18N
+    private static final String READ_METHOD = "readExternal"; // NOI18N
+
+    private static final String EXTERNALIZABLE = "java.io.Externalizable"; // NOI18N
+    private static final String OBJECT_OUTPUT = "java.io.ObjectOutput"; // NOI18N
+    private static final String OBJECT_INPUT = "java.io.ObjectInput"; // NOI18N
+    private static final String IO_EXCEPTION = "java.io.IOException"; // NOI18N
+
+    private static final String[] IMPORTS = {
+        EXTERNALIZABLE, OBJECT_OUTPUT, OBJECT_INPUT, IO_EXCEPTION, "java.io.InvalidClassException" // NOI18N
+    };
+
+    /** The {@code DataOutput} and {@code DataInput} method suffixes by primitive type. */
+    private static final Map<String, String> PRIMITIVE_METHODS;
+
+    static {
+        PRIMITIVE_METHODS = new LinkedHashMap<>();
+        PRIMITIVE_METHODS.put("int", "Int"); // NOI18N
+        PRIMITIVE_METHODS.put("long", "Long"); // NOI18N
+        PRIMITIVE_METHODS.put("float", "Float"); // NOI18N
+        PRIMITIVE_METHODS.put("double", "Double"); // NOI18N
+        PRIMITIVE_METHODS.put("boolean", "Boolean"); // NOI18N
+    }
+
+    ExternalizableMembers(TreeMaker make, TypeElement bean, List<PropertyField> fields) {
+        super(make, bean, fields);
+    }
+
+    @Override
+    protected String[] getImports() {
+        Set<String> imports = new LinkedHashSet<>(Arrays.asList(IMPORTS));
+        for (PropertyField field : fields) {
+            ObservableCollection collection = ObservableCollection.of(field);
+            if (collection != null) {
+                imports.addAll(Arrays.asList(collection.getImports()));
+            }
+        }
+        return imports.toArray(new String[imports.size()]);
+    }
+
+    /** {@code readExternal} needs a public no argument constructor. */
+    @Override
+    protected boolean isSupported(Elements elements) {
+        if (!super.isSupported(elements)) {
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(bean.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Adds {@code Externalizable} to the implemented interfaces. */
+    @Override
+    protected ClassTree completeClass(ClassTree classTree) {
+        for (Tree implemented : classTree.getImplementsClause()) {
+            String name = implemented.toString();
+            if (name.equals(EXTERNALIZABLE) || name.equals("Externalizable")) { // NOI18N
+                return classTree;
+            }
+        }
+        return make.addClassImplementsClause(classTree, make.QualIdent(EXTERNALIZABLE));
+    }
+
+    @Override
+    protected String getGeneratedName(Tree member) {
+        if (member.getKind() == Tree.Kind.VARIABLE) {
+            return ((VariableTree) member).getName().contentEquals(VERSION_FIELD) ? VERSION_FIELD : null;
+        }
+        if (member.getKind() != Tree.Kind.METHOD) {
+            return null;
+        }
+        MethodTree method = (MethodTree) member;
+        String name = method.getName().toString();
+        return (WRITE_METHOD.equals(name) || READ_METHOD.equals(name)) && method.getParameters().size() == 1
+                ? name
+                : null;
+    }
+
+    @Override
+    protected Map<String, Member> getExpectedMembers() {
+        Map<String, Member> map = new LinkedHashMap<>(4);
+        map.put(VERSION_FIELD, new Member(VERSION_FIELD, null,
+                "private static final int " + VERSION_FIELD + " = " + getVersion() + ";")); // NOI18N
+        map.put(WRITE_METHOD, new Member(WRITE_METHOD, null, "@Override public void " + WRITE_METHOD // NOI18N
+                + "(ObjectOutput out) throws IOException " + createWriteBody())); // NOI18N
+        map.put(READ_METHOD, new Member(READ_METHOD, null, "@Override @SuppressWarnings(\"unchecked\") public void " // NOI18N
+                + READ_METHOD + "(ObjectInput in) throws IOException, ClassNotFoundException " // NOI18N
+                + createReadBody()));
+        return map;
+    }
+
+    @Override
+    protected Tree createMember(Member member) {
+        switch (member.name) {
+            case VERSION_FIELD:
+                return make.Variable(
+                        make.Modifiers(EnumSet.of(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL),
+                                Collections.<AnnotationTree>emptyList()),
+                        VERSION_FIELD,
+                        make.PrimitiveType(TypeKind.INT),
+                        make.Literal(getVersion()));
+            case WRITE_METHOD:
+                return createMethod(Collections.singletonList(createAnnotation("Override", null)), // NOI18N
+                        WRITE_METHOD, OBJECT_OUTPUT, "out", // NOI18N
+                        Collections.singletonList(make.QualIdent(IO_EXCEPTION)),
+                        createWriteBody());
+            default:
+                List<AnnotationTree> annotations = new ArrayList<>(2);
+                annotations.add(createAnnotation("Override", null)); // NOI18N
+                annotations.add(createAnnotation("SuppressWarnings", "unchecked")); // NOI18N
+                List<ExpressionTree> exceptions = new ArrayList<>(2);
+                exceptions.add(make.QualIdent(IO_EXCEPTION));
+                exceptions.add(make.Identifier("ClassNotFoundException")); // NOI18N
+                return createMethod(annotations, READ_METHOD, OBJECT_INPUT, "in", // NOI18N
+                        exceptions, createReadBody());
+        }
+    }
+
+    private AnnotationTree createAnnotation(String type, String value) {
+        return make.Annotation(make.Identifier(type), value == null
+                ? Collections.<ExpressionTree>emptyList()
+                : Collections.singletonList(make.Literal(value)));
+    }
+
+    private MethodTree createMethod(List<AnnotationTree> annotations, String name,
+            String parameterType, String parameterName, List<ExpressionTree> exceptions, String bodyText) {
+        VariableTree parameter = make.Variable(
+                make.Modifiers(new HashSet<Modifier>(), Collections.<AnnotationTree>emptyList()),
+                parameterName,
+                make.QualIdent(parameterType),
+                null);
+        return make.Method(
+                make.Modifiers(EnumSet.of(Modifier.PUBLIC), annotations),
+                name,
+                make.QualIdent("void"), // NOI18N
+                Collections.<TypeParameterTree>emptyList(),
+                Collections.singletonList(parameter),
+                exceptions,
+                bodyText,
+                null);
+    }
+
+    /** A hash of the field layout, the same for the same names and types in the same order. */
+    private int getVersion() {
+        StringBuilder sb = new StringBuilder();
+        for (PropertyField field : fields) {
+            sb.append(field.getName()).append(':').append(field.getQualifiedValueType()).append(';');
+        }
+        return sb.toString().hashCode();
+    }
+
+    private String createWriteBody() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n")
+                .append("out.writeInt(").append(VERSION_FIELD).append(");\n"); // NOI18N
+        for (PropertyField field : fields) {
+            String getter = AccessorConventions.getGetterName(field.getName(), field.getValueType()) + "()"; // NOI18N
+            String primitive = PRIMITIVE_METHODS.get(field.getValueType());
+            ObservableCollection collection = ObservableCollection.of(field);
+            if (primitive != null) {
+                sb.append("out.write").append(primitive).append('(').append(getter); // NOI18N
+            } else if (collection != null) {
+                sb.append("out.writeObject(").append(collection.copy(getter)); // NOI18N
+            } else {
+                sb.append("out.writeObject(").append(getter); // NOI18N
+            }
+            sb.append(");\n"); // NOI18N
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+
+    private String createReadBody() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n")
+                .append("int version = in.readInt();\n") // NOI18N
+                .append("if (version != ").append(VERSION_FIELD).append(") {\n") // NOI18N
+                .append("throw new InvalidClassException(getClass().getName(), \"Unsupported version \" + version);\n") // NOI18N
+                .append("}\n");
+        boolean valueDeclared = false;
+        for (PropertyField field : fields) {
+            String setter = AccessorConventions.getSetterName(field.getName());
+            String primitive = PRIMITIVE_METHODS.get(field.getValueType());
+            ObservableCollection collection = ObservableCollection.of(field);
+            if (primitive != null) {
+                sb.append(setter).append("(in.read").append(primitive).append("());\n"); // NOI18N
+            } else if (collection != null) {
+                sb.append(valueDeclared ? "" : "Object ").append("value = in.readObject();\n"); // NOI18N
+                valueDeclared = true;
+                sb.append(setter).append('(')
+                        .append(collection.wrap("value", "(" + collection.getPlainType(field) + ") value")) // NOI18N
+                        .append(");\n"); // NOI18N
+            } else {
+                sb.append(setter).append("((").append(field.getValueType()).append(") in.readObject());\n"); // NOI18N
+            }
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+
+}
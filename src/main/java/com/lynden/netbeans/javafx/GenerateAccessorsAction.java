@@ -0,0 +1,66 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.awt.ActionReferences;
+import org.openide.awt.ActionRegistration;
+import org.openide.loaders.DataObject;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Generates the JavaFx accessors of all the classes in the selected packages,
+ * folders or Java files.
+ *
+ */
+@ActionID(category = "Source", id = "com.lynden.netbeans.javafx.GenerateAccessorsAction")
+@ActionRegistration(displayName = "#CTL_GenerateAccessorsAction")
+@ActionReferences({
+    @ActionReference(path = "Loaders/folder/any/Actions", position = 1850),
+    @ActionReference(path = "Loaders/text/x-java/Actions", position = 1850)
+})
+public final class GenerateAccessorsAction implements ActionListener {
+
+    private final List<DataObject> context;
+
+    public GenerateAccessorsAction(List<DataObject> context) {
+        this.context = context;
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent ev) {
+        List<FileObject> roots = new ArrayList<>(context.size());
+        for (DataObject dataObject : context) {
+            roots.add(dataObject.getPrimaryFile());
+        }
+        BatchAccessorGenerator.start(roots);
+    }
+
+}
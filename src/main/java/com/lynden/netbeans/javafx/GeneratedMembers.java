@@ -0,0 +1,252 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.Tree;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import org.netbeans.api.java.source.CompilationInfo;
+import org.netbeans.api.java.source.TreeMaker;
+
+/**
+ * A block of members generated at the end of a bean class, besides its
+ * accessors. Members which are up to date are left alone, stale ones are
+ * replaced in place and missing ones are added at the end of the class.
+ * Members no longer generated, like those of a removed field, are only
+ * removed when {@link #isLeftover} recognizes them, since hand written
+ * members may follow the same naming pattern. Members are compared on their
+ * source with whitespace removed.
+ *
+ */
+abstract class GeneratedMembers {
+
+    protected final TreeMaker make;
+    protected final TypeElement bean;
+    protected final String beanName;
+    protected final List<PropertyField> fields;
+
+    protected GeneratedMembers(TreeMaker make, TypeElement bean, List<PropertyField> fields) {
+        this.make = make;
+        this.bean = bean;
+        this.beanName = bean.getSimpleName().toString();
+        this.fields = fields;
+    }
+
+    /** The blocks enabled by the {@link GeneratorOptions}, in the order they are generated. */
+    static List<GeneratedMembers> forOptions(TreeMaker make, TypeElement bean, List<PropertyField> fields) {
+        List<GeneratedMembers> blocks = new ArrayList<>(4);
+        if (GeneratorOptions.isCellValueFactories()) {
+            blocks.add(new CellValueFactories(make, bean, fields));
+        }
+        if (GeneratorOptions.isAsyncSetters()) {
+            blocks.add(new AsyncSetters(make, bean, fields));
+        }
+        if (GeneratorOptions.isSnapshots()) {
+            blocks.add(new BeanSnapshot(make, bean, fields));
+        }
+        if (GeneratorOptions.isExternalizable()) {
+            blocks.add(new ExternalizableMembers(make, bean, fields));
+        }
+        return blocks;
+    }
+
+    /** The members which would be generated, keyed by name, in the order they are generated. */
+    protected abstract Map<String, Member> getExpectedMembers();
+
+    /**
+     * The name of a member which looks generated by this block, or
+     * {@code null}. A member whose name is expected is replaced when its
+     * source differs, any other one is passed to {@link #isLeftover}.
+     */
+    protected abstract String getGeneratedName(Tree member);
+
+    /**
+     * Whether a member named by {@link #getGeneratedName} which is not
+     * expected any more, like the one of a removed field, was generated and
+     * can be removed. Only a source which is still exactly what this block
+     * generates qualifies, so a hand written member is never removed.
+     *
+     * @param normalizedSource the source of the member without whitespace
+     */
+    protected boolean isLeftover(String name, String normalizedSource) {
+        return false;
+    }
+
+    protected abstract Tree createMember(Member member);
+
+    /**
+     * The qualified names of the types the members use; the bodies refer to
+     * them by their simple names, so they are imported, and the members are
+     * only generated when all of them are on the classpath.
+     */
+    protected abstract String[] getImports();
+
+    /**
+     * Called with the merged class, to change what the members alone can't,
+     * like the implemented interfaces.
+     */
+    protected ClassTree completeClass(ClassTree classTree) {
+        return classTree;
+    }
+
+    /**
+     * Updates the members for the fields, see {@link GeneratedMembers}.
+     *
+     * @return the updated class, or {@code classTree} itself if it is up to
+     * date or the members can't be generated for it
+     */
+    ClassTree rewrite(CompilationInfo info, ClassTree classTree) {
+        if (!isSupported(info.getElements())) {
+            return classTree;
+        }
+        return completeClass(merge(info, classTree));
+    }
+
+    /** Collects the types of {@link #getImports()}, if the members are generated. */
+    void collectImports(Elements elements, Set<TypeElement> imports) {
+        if (isSupported(elements)) {
+            for (String name : getImports()) {
+                imports.add(elements.getTypeElement(name));
+            }
+        }
+    }
+
+    /**
+     * Checks that the members can be declared in the class: it must be a top
+     * level or static nested class without type parameters, since the members
+     * include static ones and refer to it by its simple name, and the types
+     * of {@link #getImports()} must be on the classpath.
+     */
+    protected boolean isSupported(Elements elements) {
+        if (bean.getKind() != ElementKind.CLASS || !bean.getTypeParameters().isEmpty()) {
+            return false;
+        }
+        NestingKind nesting = bean.getNestingKind();
+        if (nesting != NestingKind.TOP_LEVEL
+                && !(nesting == NestingKind.MEMBER && bean.getModifiers().contains(Modifier.STATIC))) {
+            return false;
+        }
+        for (String name : getImports()) {
+            if (elements.getTypeElement(name) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the updated class, or {@code classTree} itself if the members
+     * are up to date
+     */
+    private ClassTree merge(CompilationInfo info, ClassTree classTree) {
+        Map<String, Member> expected = getExpectedMembers();
+        Set<Tree> stale = Collections.newSetFromMap(new IdentityHashMap<Tree, Boolean>());
+        Map<Tree, Member> replacements = new IdentityHashMap<>();
+
+        for (Tree member : classTree.getMembers()) {
+            String name = getGeneratedName(member);
+            if (name == null) {
+                continue;
+            }
+            Member generated = expected.get(name);
+            String source = PropertyMethodBuilder.getNormalizedSource(info, member);
+            if (generated == null) {
+                if (source != null && isLeftover(name, source)) {
+                    stale.add(member);
+                }
+            } else if (!generated.present && generated.matches(source)) {
+                generated.present = true;
+            } else {
+                stale.add(member);
+                if (!generated.present) {
+                    generated.present = true;
+                    replacements.put(member, generated);
+                }
+            }
+        }
+        List<Member> missing = new ArrayList<>();
+        for (Member generated : expected.values()) {
+            if (!generated.present) {
+                missing.add(generated);
+            }
+        }
+        if (stale.isEmpty() && missing.isEmpty()) {
+            return classTree;
+        }
+
+        ClassTree result = classTree;
+        int position = 0;
+        for (Tree member : classTree.getMembers()) {
+            if (stale.contains(member)) {
+                result = make.removeClassMember(result, member);
+                Member replacement = replacements.get(member);
+                if (replacement != null) {
+                    result = make.insertClassMember(result, position++, createMember(replacement));
+                }
+            } else {
+                position++;
+            }
+        }
+        for (Member generated : missing) {
+            result = make.addClassMember(result, createMember(generated));
+        }
+        return result;
+    }
+
+    /** A member that would be generated; {@code field} is set for the members of a single field. */
+    protected static class Member {
+
+        final String name;
+        final PropertyField field;
+        /** The source of the member, as it is generated. */
+        final String text;
+        private final String source;
+        private boolean present;
+
+        Member(String name, PropertyField field, String text) {
+            this.name = name;
+            this.field = field;
+            this.text = text;
+            this.source = AccessorConventions.stripWhitespace(text);
+        }
+
+        /** The end of a field may or may not include its semicolon. */
+        boolean matches(String normalizedSource) {
+            return normalizedSource != null
+                    && (source.equals(normalizedSource) || source.equals(normalizedSource + ";")); // NOI18N
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+/**
+ * Cancellation flag and optional deadline shared by the steps of one
+ * generation run. The steps call {@link #check()} between units of work, so
+ * a cancelled run stops before anything is rewritten.
+ *
+ */
+final class GenerationBudget {
+
+    private final long budgetNanos;
+    private volatile long deadline = Long.MAX_VALUE;
+    private volatile boolean cancelled;
+
+    /**
+     * @param budgetMillis the time the run may take once started, {@code 0}
+     * or less means no limit
+     */
+    GenerationBudget(long budgetMillis) {
+        this.budgetNanos = budgetMillis > 0 ? budgetMillis * 1000000L : 0;
+    }
+
+    /** Starts the clock; does nothing if there is no time limit. */
+    void start() {
+        if (budgetNanos > 0) {
+            deadline = System.nanoTime() + budgetNanos;
+        }
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws CancelledException if the run was cancelled or its time is up
+     */
+    void check() {
+        if (cancelled) {
+            throw new CancelledException("cancelled"); // NOI18N
+        }
+        if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+            throw new CancelledException("time budget of " // NOI18N
+                    + budgetNanos / 1000000L + " ms exceeded"); // NOI18N
+        }
+    }
+
+    static class CancelledException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        CancelledException(String message) {
+            super(message);
+        }
+    }
+
+}
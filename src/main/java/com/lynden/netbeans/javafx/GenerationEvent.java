@@ -0,0 +1,79 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one stage of a generation run; its duration is
+ * the duration of the stage. Only {@link StageTimer} refers to this class and
+ * only after checking that {@code jdk.jfr} is present, so the module still
+ * runs on JVMs without Flight Recorder.
+ *
+ */
+@Name("com.lynden.netbeans.javafx.Generation") // NOI18N
+@Label("JavaFX Accessor Generation") // NOI18N
+@Category({"NetBeans", "JavaFX Property Helper"}) // NOI18N
+@Description("A stage of the JavaFX getter and setter generator") // NOI18N
+@StackTrace(false)
+final class GenerationEvent extends Event {
+
+    @Label("Stage") // NOI18N
+    String stage;
+
+    @Label("Class") // NOI18N
+    String className;
+
+    @Label("Members") // NOI18N
+    int memberCount;
+
+    @Label("Properties") // NOI18N
+    int propertyCount;
+
+    /** The event is passed around as an {@code Object} so callers don't link to JFR. */
+    static Object start() {
+        GenerationEvent event = new GenerationEvent();
+        event.begin();
+        return event;
+    }
+
+    static void finish(Object started, String stage, String className, int memberCount, int propertyCount) {
+        GenerationEvent event = (GenerationEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = stage;
+            event.className = className;
+            event.memberCount = memberCount;
+            event.propertyCount = propertyCount;
+            event.commit();
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import java.util.prefs.Preferences;
+import org.openide.util.NbPreferences;
+
+/**
+ * Settings of the generator, stored in the module preferences.
+ *
+ */
+final class GeneratorOptions {
+
+    /** Milliseconds a single generation may take, 0 for no limit. */
+    static final String TIME_BUDGET_MILLIS = "timeBudgetMillis"; // NOI18N
+
+    /**
+     * If only the accessors that differ from the generated ones are replaced,
+     * instead of the whole accessor block being moved to the caret.
+     */
+    static final String MINIMAL_REWRITE = "minimalRewrite"; // NOI18N
+
+    /**
+     * If the property fields declared by the class are generated with the
+     * lazy pattern, see {@link LazyProperty}.
+     */
+    static final String LAZY_PROPERTIES = "lazyProperties"; // NOI18N
+
+    /**
+     * If {@code Simple*Property} field initializers are replaced with
+     * anonymous {@code *PropertyBase} subclasses, see {@link CompactProperty}.
+     */
+    static final String COMPACT_PROPERTIES = "compactProperties"; // NOI18N
+
+    /**
+     * If the durations of the generation stages are collected and their
+     * percentiles logged after each run, see {@link StageStatistics}.
+     */
+    static final String TIMING_SUMMARY = "timingSummary"; // NOI18N
+
+    /**
+     * If accessors that are only missing are inserted as plain text with a
+     * single document edit, see {@link AccessorTextInsertion}.
+     */
+    static final String TEXT_INSERTION = "textInsertion"; // NOI18N
+
+    /**
+     * Comma separated qualified names of the superclasses whose fields get
+     * accessors too, {@code *} for all of them; by default only the fields
+     * declared by the class itself are used.
+     */
+    static final String INHERITED_FIELDS_FROM = "inheritedFieldsFrom"; // NOI18N
+
+    /**
+     * If the accessors of every class of the file, nested ones included, are
+     * generated at once instead of only those of the class at the caret.
+     */
+    static final String WHOLE_FILE = "wholeFile"; // NOI18N
+
+    /**
+     * If the classes get a static accessor table and {@code TableView} cell
+     * value factories for their properties, see {@link CellValueFactories}.
+     */
+    static final String CELL_VALUE_FACTORIES = "cellValueFactories"; // NOI18N
+
+    /**
+     * If the classes get thread safe {@code set*Async} setters coalescing the
+     * updates made off the FX thread, see {@link AsyncSetters}.
+     */
+    static final String ASYNC_SETTERS = "asyncSetters"; // NOI18N
+
+    /**
+     * If the classes get an immutable {@code Snapshot} of their property
+     * values with {@code snapshot()} and {@code apply(Snapshot)}, see
+     * {@link BeanSnapshot}.
+     */
+    static final String SNAPSHOTS = "snapshots"; // NOI18N
+
+    /**
+     * If {@code ObjectProperty<Integer>} fields and the like are converted to
+     * the primitive property types, see {@link PrimitiveProperty}.
+     */
+    static final String PRIMITIVE_PROPERTIES = "primitiveProperties"; // NOI18N
+
+    /**
+     * If the classes get {@code Externalizable} methods writing their
+     * property values, see {@link ExternalizableMembers}.
+     */
+    static final String EXTERNALIZABLE = "externalizable"; // NOI18N
+
+    private GeneratorOptions() {
+    }
+
+    static long getTimeBudgetMillis() {
+        return preferences().getLong(TIME_BUDGET_MILLIS, 0);
+    }
+
+    static boolean isMinimalRewrite() {
+        return preferences().getBoolean(MINIMAL_REWRITE, true);
+    }
+
+    static boolean isLazyProperties() {
+        return preferences().getBoolean(LAZY_PROPERTIES, false);
+    }
+
+    static boolean isCompactProperties() {
+        return preferences().getBoolean(COMPACT_PROPERTIES, false);
+    }
+
+    static boolean isTimingSummary() {
+        return preferences().getBoolean(TIMING_SUMMARY, false);
+    }
+
+    static boolean isTextInsertion() {
+        return preferences().getBoolean(TEXT_INSERTION, false);
+    }
+
+    static String getInheritedFieldsFrom() {
+        return preferences().get(INHERITED_FIELDS_FROM, ""); // NOI18N
+    }
+
+    static boolean isWholeFile() {
+        return preferences().getBoolean(WHOLE_FILE, false);
+    }
+
+    static boolean isCellValueFactories() {
+        return preferences().getBoolean(CELL_VALUE_FACTORIES, false);
+    }
+
+    static boolean isAsyncSetters() {
+        return preferences().getBoolean(ASYNC_SETTERS, false);
+    }
+
+    static boolean isSnapshots() {
+        return preferences().getBoolean(SNAPSHOTS, false);
+    }
+
+    static boolean isPrimitiveProperties() {
+        return preferences().getBoolean(PRIMITIVE_PROPERTIES, false);
+    }
+
+    static boolean isExternalizable() {
+        return preferences().getBoolean(EXTERNALIZABLE, false);
+    }
+
+    /**
+     * If the options in effect change more than the accessors of a single
+     * class, so they can't be inserted as plain text.
+     */
+    static boolean needsTreeRewrite() {
+        return isWholeFile() || isLazyProperties() || isCompactProperties() || isPrimitiveProperties()
+                || isCellValueFactories() || isAsyncSetters() || isSnapshots() || isExternalizable();
+    }
+
+    private static Preferences preferences() {
+        return NbPreferences.forModule(GeneratorOptions.class);
+    }
+
+}
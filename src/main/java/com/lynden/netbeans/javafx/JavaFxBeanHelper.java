@@ -28,47 +28,52 @@ import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import javafx.beans.property.*;
-import javafx.embed.swing.JFXPanel;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
-import javax.lang.model.element.VariableElement;
-import javax.lang.model.util.ElementFilter;
-import javax.lang.model.util.Elements;
+import javax.swing.SwingUtilities;
 import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
 import org.netbeans.api.editor.mimelookup.MimeRegistration;
-import org.netbeans.api.java.source.CancellableTask;
 import org.netbeans.api.java.source.CompilationController;
+import org.netbeans.api.java.source.CompilationInfo;
+import org.netbeans.api.java.source.GeneratorUtilities;
 import org.netbeans.api.java.source.JavaSource;
 import org.netbeans.api.java.source.ModificationResult;
 import org.netbeans.api.java.source.TreeMaker;
 import org.netbeans.api.java.source.WorkingCopy;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.api.progress.ProgressHandleFactory;
 import org.netbeans.spi.editor.codegen.CodeGenerator;
 import org.netbeans.spi.editor.codegen.CodeGeneratorContextProvider;
+import org.openide.util.Cancellable;
 import org.openide.util.Exceptions;
 import org.openide.util.Lookup;
+import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
 
 public class JavaFxBeanHelper implements CodeGenerator {
 
+    private static final Logger LOG = Logger.getLogger(JavaFxBeanHelper.class.getName());
+    private static final RequestProcessor RP = new RequestProcessor(JavaFxBeanHelper.class.getName(), 1);
+
     protected JTextComponent textComponent;
-    //this is needed to initialize the JavaFx Toolkit
-    protected JFXPanel panel = new JFXPanel();
-    protected List<VariableElement> fields;
 
     public JavaFxBeanHelper textComponent(final JTextComponent value) {
         this.textComponent = value;
         return this;
     }
 
-    public JavaFxBeanHelper fields(final List<VariableElement> value) {
-        this.fields = value;
-        return this;
-    }
-
     /**
      *
      * @param context containing JTextComponent and possibly other items
@@ -76,20 +81,56 @@ public class JavaFxBeanHelper implements CodeGenerator {
      */
     private JavaFxBeanHelper(Lookup context) { // Good practice is not to save Lookup outside ctor
         textComponent = context.lookup(JTextComponent.class);
-        CompilationController controller = context.lookup(CompilationController.class);
-        try {
-            fields = getFields(context, controller);
-        } catch (CodeGeneratorException ex) {
-            Exceptions.printStackTrace(ex);
-        }
     }
 
+    /**
+     * Called each time the Insert Code popup opens, so it only checks if the
+     * class at the caret has any property field at all; the fields are
+     * collected later by {@link #invoke()}.
+     */
     @MimeRegistration(mimeType = "text/x-java", position = 250, service = CodeGenerator.Factory.class)
     public static class Factory implements CodeGenerator.Factory {
 
+        /** Time {@link #create(Lookup)} may take before it gets logged. */
+        static final long CREATE_BUDGET_MILLIS = 20;
+
         @Override
         public List<? extends CodeGenerator> create(Lookup context) {
-            return Collections.singletonList(new JavaFxBeanHelper(context));
+            long start = System.nanoTime();
+            try {
+                if (!isApplicable(context)) {
+                    return Collections.emptyList();
+                }
+                return Collections.singletonList(new JavaFxBeanHelper(context));
+            } finally {
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                if (elapsed > CREATE_BUDGET_MILLIS) {
+                    LOG.log(Level.INFO, "Factory.create took {0} ms, budget is {1} ms", // NOI18N
+                            new Object[]{elapsed, CREATE_BUDGET_MILLIS});
+                }
+            }
+        }
+
+        private static boolean isApplicable(Lookup context) {
+            CompilationController controller = context.lookup(CompilationController.class);
+            TreePath path = context.lookup(TreePath.class);
+            if (controller == null || path == null) {
+                return false;
+            }
+            return isApplicable(controller.getTrees(), path, PropertyTypeClassifier.forCompilation(controller));
+        }
+
+        /** Whether the class enclosing {@code path} has property fields. */
+        static boolean isApplicable(Trees trees, TreePath path, PropertyTypeClassifier classifier) {
+            TreePath classPath = TreeHelper.getParentElementOfKind(Tree.Kind.CLASS, path);
+            if (classPath == null) {
+                return false;
+            }
+            Element element = trees.getElement(classPath);
+            if (element == null || !element.getKind().isClass()) {
+                return false;
+            }
+            return classifier.hasPropertyFields((TypeElement) element);
         }
     }
 
@@ -103,100 +144,267 @@ public class JavaFxBeanHelper implements CodeGenerator {
 
     /**
      * This will be invoked when user chooses this Generator from Insert Code
-     * dialog
+     * dialog. The accessors are generated by a background task with a
+     * cancellable progress indicator; only the commit of the changes goes
+     * back to the event dispatch thread.
      */
     @Override
     public void invoke() {
         Document doc = textComponent.getDocument();
-        JavaSource javaSource = JavaSource.forDocument(doc);
+        final JavaSource javaSource = JavaSource.forDocument(doc);
+        if (javaSource == null) {
+            return;
+        }
 
-        CancellableTask<WorkingCopy> task = new CodeGeneratorCancellableTask(textComponent) {
+        final CodeGeneratorCancellableTask task = new CodeGeneratorCancellableTask(textComponent) {
             @Override
-            public void generateCode(WorkingCopy workingCopy, TreePath path, int position) {
-                JavaFxBeanHelper.this.generateCode(workingCopy, path, position, JavaFxBeanHelper.this.fields);
+            public void generateCode(WorkingCopy workingCopy, TreePath path, int position,
+                    Set<TypeElement> imports) {
+                List<PropertyField> fields;
+                try {
+                    fields = getFields(workingCopy, path);
+                } catch (CodeGeneratorException ex) {
+                    Exceptions.printStackTrace(ex);
+                    return;
+                }
+                if (fields.isEmpty()) {
+                    return;
+                }
+                getBudget().check();
+                generateAccessors(workingCopy, path, position, fields, getBudget(), imports);
             }
         };
 
-        try {
-            ModificationResult result = javaSource.runModificationTask(task);
-            result.commit();
-        } catch (IOException ex) {
-            Exceptions.printStackTrace(ex);
+        if (GeneratorOptions.isTextInsertion()) {
+            postTextInsertion(javaSource, doc, textComponent.getCaretPosition(), task);
+        } else {
+            postModification(javaSource, task);
         }
+    }
+
+    /**
+     * Tries the {@link AccessorTextInsertion} fast path first, falling back to
+     * the modification task when it doesn't apply.
+     */
+    private static void postTextInsertion(final JavaSource javaSource, final Document doc,
+            final int caretOffset, final CodeGeneratorCancellableTask task) {
+        RP.post(new Runnable() {
+            @Override
+            public void run() {
+                final AccessorTextInsertion insertion;
+                try {
+                    insertion = AccessorTextInsertion.prepare(javaSource, doc, caretOffset, task.getBudget());
+                } catch (GenerationBudget.CancelledException ex) {
+                    return;
+                } catch (IOException ex) {
+                    Exceptions.printStackTrace(ex);
+                    return;
+                }
+                if (insertion == null) {
+                    postModification(javaSource, task);
+                    return;
+                }
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!insertion.apply()) {
+                            postModification(javaSource, task);
+                        }
+                    }
+                });
+            }
+        });
+    }
 
+    private static void postModification(final JavaSource javaSource, final CodeGeneratorCancellableTask task) {
+        RP.post(new Runnable() {
+            @Override
+            public void run() {
+                ProgressHandle handle = ProgressHandleFactory.createHandle(
+                        NbBundle.getMessage(JavaFxBeanHelper.class, "LBL_GeneratingAccessors"),
+                        new Cancellable() {
+                            @Override
+                            public boolean cancel() {
+                                task.cancel();
+                                return true;
+                            }
+                        });
+                handle.start();
+                try {
+                    final ModificationResult result = javaSource.runModificationTask(task);
+                    if (!task.isAborted()) {
+                        SwingUtilities.invokeLater(new Runnable() {
+                            @Override
+                            public void run() {
+                                StageTimer timer = StageTimer.start(StageTimer.Stage.COMMIT,
+                                        javaSource.getFileObjects().iterator().next().getNameExt());
+                                try {
+                                    result.commit();
+                                } catch (IOException ex) {
+                                    Exceptions.printStackTrace(ex);
+                                } finally {
+                                    timer.end();
+                                }
+                                StageStatistics.logSummary();
+                            }
+                        });
+                    }
+                } catch (IOException ex) {
+                    Exceptions.printStackTrace(ex);
+                } finally {
+                    handle.finish();
+                }
+            }
+        });
     }
 
-    protected void generateCode(WorkingCopy wc, TreePath path, int position, List<VariableElement> fields) {
+    protected void generateCode(WorkingCopy wc, TreePath path, int position, List<PropertyField> fields) {
+        generateAccessors(wc, path, position, fields, new GenerationBudget(0));
+    }
+
+    /**
+     * Replaces the accessors of the given fields in the class at {@code path},
+     * inserting the new ones at the member index {@code position}. The class
+     * is only rewritten once all the accessors have been built, so a run
+     * stopped by {@code budget} leaves it untouched. In minimal rewrite mode
+     * accessors that are already up to date are not touched at all.
+     * Boxed object properties are converted to primitive ones first, if
+     * enabled, see {@link PrimitiveProperty}.
+     * The accessors are built with qualified types which are turned into
+     * imports here, together with the types the bodies of the generated
+     * members refer to by simple name.
+     */
+    static void generateAccessors(WorkingCopy wc, TreePath path, int position,
+            List<PropertyField> fields, GenerationBudget budget) {
+        Set<TypeElement> imports = new HashSet<>();
+        generateAccessors(wc, path, position, fields, budget, imports);
+        addImports(wc, imports);
+    }
+
+    /**
+     * Same as {@link #generateAccessors(WorkingCopy, TreePath, int, List, GenerationBudget)},
+     * except that the types the bodies of the generated members refer to by
+     * simple name are only added to {@code imports}. This is the variant for
+     * generating several classes of one working copy: the caller imports the
+     * types of all of them at once with {@link #addImports}.
+     */
+    static void generateAccessors(WorkingCopy wc, TreePath path, int position,
+            List<PropertyField> fields, GenerationBudget budget, Set<TypeElement> imports) {
 
         TypeElement typeClassElement = (TypeElement) wc.getTrees().getElement(path);
         if (typeClassElement != null) {
             int index = position;
 
             TreeMaker make = wc.getTreeMaker();
-            ClassTree classTree = (ClassTree) path.getLeaf();
+            ClassTree originalTree = (ClassTree) path.getLeaf();
+            ClassTree classTree = originalTree;
+            if (GeneratorOptions.isPrimitiveProperties()) {
+                // converted first, so the accessors and the other field
+                // patterns see the primitive properties
+                Map<String, PrimitiveProperty> primitives = PrimitiveProperty.analyze(wc, typeClassElement, classTree, fields);
+                fields = PrimitiveProperty.convertFields(fields, primitives);
+                classTree = PrimitiveProperty.rewriteFields(wc, classTree, primitives);
+            }
             List<Tree> members = new ArrayList<>(classTree.getMembers());
             String className = typeClassElement.toString();
 
-            PropertyMethodBuilder propertyMethodBuilder = new PropertyMethodBuilder(make, members, fields, className);
+            Map<String, LazyProperty> lazyProperties = GeneratorOptions.isLazyProperties()
+                    ? LazyProperty.analyze(classTree, fields)
+                    : Collections.<String, LazyProperty>emptyMap();
 
-            index = propertyMethodBuilder.removeExistingPropMethods(index);
+            List<GeneratedMembers> generatedMembers = GeneratedMembers.forOptions(make, typeClassElement, fields);
+
+            PropertyMethodBuilder propertyMethodBuilder = new PropertyMethodBuilder(make, members, fields)
+                    .budget(budget)
+                    .lazyProperties(lazyProperties);
+
+            ClassTree newClassTree;
+            StageTimer timer = StageTimer.start(StageTimer.Stage.MERGE, className)
+                    .members(members.size())
+                    .properties(fields.size());
+            try {
+                if (GeneratorOptions.isMinimalRewrite()) {
+                    newClassTree = propertyMethodBuilder.mergePropMethods(wc, classTree, index);
+                } else {
+                    propertyMethodBuilder.replacePropMethods(index);
+                    budget.check();
+                    newClassTree = make.Class(classTree.getModifiers(),
+                            classTree.getSimpleName(),
+                            classTree.getTypeParameters(),
+                            classTree.getExtendsClause(),
+                            (List<ExpressionTree>) classTree.getImplementsClause(),
+                            members);
+                }
+                newClassTree = rewriteFields(make, newClassTree, fields, lazyProperties);
+                for (GeneratedMembers block : generatedMembers) {
+                    newClassTree = block.rewrite(wc, newClassTree);
+                }
+            } finally {
+                timer.end();
+            }
+            budget.check();
 
-            propertyMethodBuilder.addPropMethods(index);
+            if (newClassTree != originalTree) {
+                timer = StageTimer.start(StageTimer.Stage.REWRITE, className)
+                        .members(newClassTree.getMembers().size())
+                        .properties(fields.size());
+                try {
+                    wc.rewrite(originalTree, GeneratorUtilities.get(wc).importFQNs(newClassTree));
+                    LazyProperty.collectImports(wc.getElements(), lazyProperties, imports);
+                    for (GeneratedMembers block : generatedMembers) {
+                        block.collectImports(wc.getElements(), imports);
+                    }
+                } finally {
+                    timer.end();
+                }
+            }
+        }
+    }
 
-            ClassTree newClassTree = make.Class(classTree.getModifiers(),
-                    classTree.getSimpleName(),
-                    classTree.getTypeParameters(),
-                    classTree.getExtendsClause(),
-                    (List<ExpressionTree>) classTree.getImplementsClause(),
-                    members);
+    /**
+     * Imports the types used by the bodies of the lazy property methods and
+     * of the {@link GeneratedMembers} of every class generated in the working
+     * copy. Must be called once per working copy, since each rewrite of the
+     * compilation unit starts from the original one and replaces the
+     * previous rewrite.
+     */
+    static void addImports(WorkingCopy wc, Set<TypeElement> imports) {
+        if (!imports.isEmpty()) {
+            wc.rewrite(wc.getCompilationUnit(),
+                    GeneratorUtilities.get(wc).addImports(wc.getCompilationUnit(), imports));
+        }
+    }
 
-            wc.rewrite(classTree, newClassTree);
+    /** Applies the lazy and compact field patterns, if enabled. */
+    private static ClassTree rewriteFields(TreeMaker make, ClassTree classTree,
+            List<PropertyField> fields, Map<String, LazyProperty> lazyProperties) {
+        ClassTree result = LazyProperty.rewriteFields(make, classTree, lazyProperties);
+        if (GeneratorOptions.isCompactProperties()) {
+            result = CompactProperty.rewriteFields(make, result, fields, lazyProperties);
         }
+        return result;
     }
 
-    private List<VariableElement> getFields(Lookup context, CompilationController controller) throws CodeGeneratorException {
+    private List<PropertyField> getFields(CompilationInfo info, TreePath path) throws CodeGeneratorException {
         try {
-            List<VariableElement> elementList = new ArrayList<>();
-            TreePath treePath = context.lookup(TreePath.class);
-            TreePath path = TreeHelper.getParentElementOfKind(Tree.Kind.CLASS, treePath);
-            TypeElement typeElement = (TypeElement) controller.getTrees().getElement(path);
+            TypeElement typeElement = (TypeElement) info.getTrees().getElement(path);
 
             if (!typeElement.getKind().isClass()) {
                 throw new CodeGeneratorException("typeElement " + typeElement.getKind().name() + " is not a class, cannot generate code.");
             }
 
-            Elements elements = controller.getElements();
-            List<VariableElement> temp = ElementFilter.fieldsIn(elements.getAllMembers(typeElement));
-
-            for (VariableElement e : temp) {
-                try {
-                    Class<?> memberClass = Class.forName(getClassName(e.asType().toString()));
-                    if (Property.class.isAssignableFrom(memberClass) &&
-                        !ListProperty.class.isAssignableFrom(memberClass) &&
-                        !MapProperty.class.isAssignableFrom(memberClass) &&
-                        !ObjectProperty.class.isAssignableFrom(memberClass) &&
-                        !SetProperty.class.isAssignableFrom(memberClass) ) {
-                        
-                        elementList.add(e);
-                    }
-                } catch (Exception ex) {
-                    Exceptions.printStackTrace(ex);
-                }
+            StageTimer timer = StageTimer.start(StageTimer.Stage.ANALYZE, typeElement.toString());
+            List<PropertyField> fields = null;
+            try {
+                fields = AnalysisCache.getClassAnalysis(info, path).getFields();
+                return fields;
+            } finally {
+                timer.properties(fields == null ? -1 : fields.size()).end();
             }
-            return elementList;
         } catch (NullPointerException ex) {
             throw new CodeGeneratorException(ex);
         }
     }
-    
-    
-    protected String getClassName( String fullName ) {
-        if( !fullName.contains("<") ) {
-            return fullName;
-        } else {
-            return fullName.substring( 0, fullName.indexOf("<") );
-        }
-    }
 
     private static class CodeGeneratorException extends Exception {
 
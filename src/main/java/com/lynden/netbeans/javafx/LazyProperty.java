@@ -0,0 +1,311 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.tree.AnnotationTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.ModifiersTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreeScanner;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import org.netbeans.api.java.source.TreeMaker;
+
+/**
+ * A property field generated with the lazy pattern: the value is kept in a
+ * plain shadow field and the property is only created by the first call of
+ * its property method.
+ *
+ * <pre>
+ * private String _name;
+ * private StringProperty name;
+ *
+ * public final String getName() {
+ *     return name == null ? _name : name.get();
+ * }
+ * public final void setName(String value) {
+ *     if (name == null) {
+ *         _name = value;
+ *     } else {
+ *         name.set(value);
+ *     }
+ * }
+ * public final StringProperty nameProperty() {
+ *     if (name == null) {
+ *         name = new SimpleStringProperty(this, "name", _name);
+ *     }
+ *     return name;
+ * }
+ * </pre>
+ *
+ */
+final class LazyProperty {
+
+    private static final String JAVAFX_PROPERTY_PACKAGE = "javafx.beans.property."; // NOI18N
+    private static final String SHADOW_PREFIX = "_"; // NOI18N
+
+    /** The implementations known to have the {@code (bean, name, initialValue)} constructor. */
+    private static final Set<String> IMPLEMENTATIONS = new HashSet<>(Arrays.asList(
+            "SimpleBooleanProperty", "SimpleDoubleProperty", "SimpleFloatProperty", // NOI18N
+            "SimpleIntegerProperty", "SimpleLongProperty", "SimpleStringProperty", // NOI18N
+            "SimpleObjectProperty", "SimpleListProperty", "SimpleSetProperty", // NOI18N
+            "SimpleMapProperty")); // NOI18N
+
+    private final PropertyField field;
+    private final VariableTree variable;
+    private final String shadowName;
+    private final String implementation;
+    private final String implementationImport;
+    private final ExpressionTree initialValue;
+
+    private LazyProperty(PropertyField field, VariableTree variable, String shadowName,
+            String implementation, String implementationImport, ExpressionTree initialValue) {
+        this.field = field;
+        this.variable = variable;
+        this.shadowName = shadowName;
+        this.implementation = implementation;
+        this.implementationImport = implementationImport;
+        this.initialValue = initialValue;
+    }
+
+    /**
+     * Finds the fields declared by the class that can be made lazy, keyed by
+     * field name. Inherited fields, fields created as anything but one of the
+     * standard {@code Simple*Property} classes, and fields the class uses
+     * outside of their own accessors, i.e. to add a listener in the
+     * constructor, keep the plain accessors: they need the property object
+     * from the start.
+     */
+    static Map<String, LazyProperty> analyze(ClassTree classTree, List<PropertyField> fields) {
+        Map<String, VariableTree> variables = new HashMap<>();
+        Map<String, MethodTree> methods = new HashMap<>();
+        for (Tree member : classTree.getMembers()) {
+            if (member.getKind() == Tree.Kind.VARIABLE) {
+                VariableTree variable = (VariableTree) member;
+                variables.put(variable.getName().toString(), variable);
+            } else if (member.getKind() == Tree.Kind.METHOD) {
+                MethodTree method = (MethodTree) member;
+                methods.put(method.getName().toString(), method);
+            }
+        }
+
+        Map<String, LazyProperty> result = new HashMap<>();
+        for (PropertyField field : fields) {
+            VariableTree variable = variables.get(field.getName());
+            if (variable == null || variable.getModifiers().getFlags().contains(Modifier.STATIC)
+                    || isUsedOutsideAccessors(classTree, variable, field)) {
+                continue;
+            }
+            String implementation = null;
+            String implementationImport = null;
+            ExpressionTree initialValue = null;
+            NewClassTree creation = null;
+            if (variable.getInitializer() != null && variable.getInitializer().getKind() == Tree.Kind.NEW_CLASS) {
+                creation = (NewClassTree) variable.getInitializer();
+                List<? extends ExpressionTree> arguments = creation.getArguments();
+                if (arguments.size() == 1 || arguments.size() == 3) {
+                    initialValue = arguments.get(arguments.size() - 1);
+                }
+            } else if (variable.getInitializer() == null) {
+                MethodTree propertyMethod = methods.get(AccessorConventions.getPropertyMethodName(field.getName()));
+                creation = propertyMethod == null ? null : findCreation(propertyMethod);
+            } else {
+                continue;
+            }
+            if (creation != null) {
+                if (creation.getClassBody() != null || !isKnownImplementation(creation.getIdentifier().toString())) {
+                    continue;
+                }
+                implementation = creation.getIdentifier().toString();
+            } else if (field.getQualifiedPropertyType().startsWith(JAVAFX_PROPERTY_PACKAGE)) {
+                String propertyType = field.getPropertyType();
+                int typeArguments = propertyType.indexOf('<');
+                String rawType = typeArguments == -1 ? propertyType : propertyType.substring(0, typeArguments);
+                if (!IMPLEMENTATIONS.contains("Simple" + rawType)) { // NOI18N
+                    continue;
+                }
+                implementation = "Simple" + rawType + (typeArguments == -1 ? "" : "<>"); // NOI18N
+                implementationImport = JAVAFX_PROPERTY_PACKAGE + "Simple" + rawType; // NOI18N
+            } else {
+                continue;
+            }
+            String shadowName = SHADOW_PREFIX + AccessorConventions.getPropertyName(field.getName());
+            result.put(field.getName(), new LazyProperty(field, variable, shadowName,
+                    implementation, implementationImport, initialValue));
+        }
+        return result;
+    }
+
+    /**
+     * Adds the missing shadow fields and drops the initializer and the
+     * {@code final} modifier of the property fields.
+     *
+     * @return the updated class, or {@code classTree} itself if every field
+     * is already lazy
+     */
+    static ClassTree rewriteFields(TreeMaker make, ClassTree classTree, Map<String, LazyProperty> lazyProperties) {
+        if (lazyProperties.isEmpty()) {
+            return classTree;
+        }
+        Set<String> names = new HashSet<>();
+        for (Tree member : classTree.getMembers()) {
+            if (member.getKind() == Tree.Kind.VARIABLE) {
+                names.add(((VariableTree) member).getName().toString());
+            }
+        }
+        ClassTree result = classTree;
+        for (LazyProperty lazy : lazyProperties.values()) {
+            VariableTree variable = lazy.variable;
+            int index = result.getMembers().indexOf(variable);
+            if (index == -1) {
+                continue;
+            }
+            ModifiersTree modifiers = variable.getModifiers();
+            if (variable.getInitializer() != null || modifiers.getFlags().contains(Modifier.FINAL)) {
+                Set<Modifier> flags = EnumSet.noneOf(Modifier.class);
+                flags.addAll(modifiers.getFlags());
+                flags.remove(Modifier.FINAL);
+                VariableTree lazyVariable = make.Variable(
+                        make.Modifiers(flags, modifiers.getAnnotations()),
+                        variable.getName(),
+                        variable.getType(),
+                        null);
+                result = make.removeClassMember(result, variable);
+                result = make.insertClassMember(result, index, lazyVariable);
+            }
+            if (!names.contains(lazy.shadowName)) {
+                VariableTree shadow = make.Variable(
+                        make.Modifiers(EnumSet.of(Modifier.PRIVATE), Collections.<AnnotationTree>emptyList()),
+                        lazy.shadowName,
+                        make.Type(lazy.field.getQualifiedValueType()),
+                        lazy.initialValue);
+                result = make.insertClassMember(result, index, shadow);
+            }
+        }
+        return result;
+    }
+
+    /** Collects the default implementations used by the property methods, to be imported. */
+    static void collectImports(Elements elements, Map<String, LazyProperty> lazyProperties,
+            Set<TypeElement> imports) {
+        for (LazyProperty lazy : lazyProperties.values()) {
+            if (lazy.implementationImport != null) {
+                TypeElement element = elements.getTypeElement(lazy.implementationImport);
+                if (element != null) {
+                    imports.add(element);
+                }
+            }
+        }
+    }
+
+    String getShadowName() {
+        return shadowName;
+    }
+
+    /** The property class to instantiate, as written in the source. */
+    String getImplementation() {
+        return implementation;
+    }
+
+    /** Whether {@code implementation}, as written in the source, is a standard {@code Simple*Property}. */
+    private static boolean isKnownImplementation(String implementation) {
+        int typeArguments = implementation.indexOf('<');
+        String rawType = typeArguments == -1 ? implementation : implementation.substring(0, typeArguments);
+        if (rawType.startsWith(JAVAFX_PROPERTY_PACKAGE)) {
+            rawType = rawType.substring(JAVAFX_PROPERTY_PACKAGE.length());
+        }
+        return IMPLEMENTATIONS.contains(rawType);
+    }
+
+    /**
+     * Whether any member of the class but the field itself and its getter,
+     * setter and property method refers to the field. Any identifier with the
+     * field name counts, which may keep a field plain for a same named local
+     * variable but never makes a used field lazy.
+     */
+    private static boolean isUsedOutsideAccessors(ClassTree classTree, VariableTree variable, PropertyField field) {
+        final String name = field.getName();
+        Set<String> accessors = new HashSet<>(Arrays.asList(
+                AccessorConventions.getGetterName(name, field.getValueType()),
+                AccessorConventions.getSetterName(name),
+                AccessorConventions.getPropertyMethodName(name)));
+        TreeScanner<Boolean, Void> scanner = new TreeScanner<Boolean, Void>() {
+            @Override
+            public Boolean visitIdentifier(IdentifierTree node, Void p) {
+                return node.getName().contentEquals(name);
+            }
+
+            @Override
+            public Boolean visitMemberSelect(MemberSelectTree node, Void p) {
+                return node.getIdentifier().contentEquals(name) || Boolean.TRUE.equals(super.visitMemberSelect(node, p));
+            }
+
+            @Override
+            public Boolean reduce(Boolean r1, Boolean r2) {
+                return Boolean.TRUE.equals(r1) || Boolean.TRUE.equals(r2);
+            }
+        };
+        for (Tree member : classTree.getMembers()) {
+            if (member == variable || member.getKind() == Tree.Kind.METHOD
+                    && accessors.contains(((MethodTree) member).getName().toString())) {
+                continue;
+            }
+            if (Boolean.TRUE.equals(scanner.scan(member, null))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static NewClassTree findCreation(MethodTree method) {
+        return new TreeScanner<NewClassTree, Void>() {
+            @Override
+            public NewClassTree visitNewClass(NewClassTree node, Void p) {
+                return node;
+            }
+
+            @Override
+            public NewClassTree reduce(NewClassTree r1, NewClassTree r2) {
+                return r1 != null ? r1 : r2;
+            }
+        }.scan(method.getBody(), null);
+    }
+
+}
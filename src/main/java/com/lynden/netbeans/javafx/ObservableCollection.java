@@ -0,0 +1,118 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+/**
+ * The observable collections held by list, set and map properties. They are
+ * neither serializable nor safe to read from another thread, so generated
+ * code which copies property values copies these into a plain collection,
+ * and wraps the copy again when it writes them back.
+ *
+ */
+enum ObservableCollection {
+
+    LIST("ObservableList", "List", "ArrayList", "unmodifiableList", "observableArrayList", true), // NOI18N
+    SET("ObservableSet", "Set", "HashSet", "unmodifiableSet", "observableSet", false), // NOI18N
+    MAP("ObservableMap", "Map", "HashMap", "unmodifiableMap", "observableMap", false); // NOI18N
+
+    private static final String COLLECTIONS_PACKAGE = "javafx.collections."; // NOI18N
+    private static final String UTIL_PACKAGE = "java.util."; // NOI18N
+    static final String FX_COLLECTIONS = COLLECTIONS_PACKAGE + "FXCollections"; // NOI18N
+    static final String COLLECTIONS = UTIL_PACKAGE + "Collections"; // NOI18N
+
+    private final String observableType;
+    private final String plainType;
+    private final String copyType;
+    private final String unmodifiableMethod;
+    private final String wrapMethod;
+    /** Whether {@link #wrapMethod} copies its argument; the set and map ones only wrap it. */
+    private final boolean wrapCopies;
+
+    private ObservableCollection(String observableType, String plainType, String copyType,
+            String unmodifiableMethod, String wrapMethod, boolean wrapCopies) {
+        this.observableType = observableType;
+        this.plainType = plainType;
+        this.copyType = copyType;
+        this.unmodifiableMethod = unmodifiableMethod;
+        this.wrapMethod = wrapMethod;
+        this.wrapCopies = wrapCopies;
+    }
+
+    /** The collection the value of the field is, or {@code null} for any other value. */
+    static ObservableCollection of(PropertyField field) {
+        String type = field.getQualifiedValueType();
+        int typeArguments = type.indexOf('<');
+        String rawType = typeArguments == -1 ? type : type.substring(0, typeArguments);
+        for (ObservableCollection collection : values()) {
+            if (rawType.equals(COLLECTIONS_PACKAGE + collection.observableType)) {
+                return collection;
+            }
+        }
+        return null;
+    }
+
+    /** The plain collection interface with the type arguments of the field, i.e. {@code List<Order>}. */
+    String getPlainType(PropertyField field) {
+        return plainType + getTypeArguments(field.getValueType());
+    }
+
+    String getQualifiedPlainType(PropertyField field) {
+        return UTIL_PACKAGE + plainType + getTypeArguments(field.getQualifiedValueType());
+    }
+
+    /** {@code expression == null ? null : new ArrayList<>(expression)} */
+    String copy(String expression) {
+        return expression + " == null ? null : new " + copyType + "<>(" + expression + ")"; // NOI18N
+    }
+
+    /** An unmodifiable {@link #copy}, which also refers to {@link #COLLECTIONS}. */
+    String unmodifiableCopy(String expression) {
+        return expression + " == null ? null : Collections." + unmodifiableMethod // NOI18N
+                + "(new " + copyType + "<>(" + expression + "))"; // NOI18N
+    }
+
+    /**
+     * {@code checked == null ? null : FXCollections.observableArrayList(value)},
+     * where {@code value} is {@code checked} or a cast of it. The observable
+     * collection never shares the storage of {@code value}, which may be an
+     * unmodifiable collection: a set or map is copied before it is wrapped,
+     * i.e. {@code FXCollections.observableSet(new HashSet<>(value))}.
+     */
+    String wrap(String checked, String value) {
+        String storage = wrapCopies ? value : "new " + copyType + "<>(" + value + ")"; // NOI18N
+        return checked + " == null ? null : FXCollections." + wrapMethod + "(" + storage + ")"; // NOI18N
+    }
+
+    /** The types {@link #copy} and {@link #wrap} refer to by simple name. */
+    String[] getImports() {
+        return new String[]{UTIL_PACKAGE + plainType, UTIL_PACKAGE + copyType, FX_COLLECTIONS};
+    }
+
+    private static String getTypeArguments(String type) {
+        int typeArguments = type.indexOf('<');
+        return typeArguments == -1 ? "" : type.substring(typeArguments); // NOI18N
+    }
+
+}
@@ -24,8 +24,8 @@ SOFTWARE.
 
 package com.lynden.netbeans.javafx;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Manipulates strings containing types.
@@ -33,39 +33,110 @@ import java.util.List;
  */
 class PackageHelper {
 
+    /** Number of simplified type names kept in {@link #CACHE}. */
+    private static final int CACHE_SIZE = 1024;
+
+    private static final Map<String, String> CACHE = new LinkedHashMap<String, String>(64, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(64);
+        }
+    };
+
     /** Removes packages from class names (it manages generics too).
      * i.e.
      * {@code java.lang.String -> String}
      * and
-     * {@code java.util.List<java.lang.String> -> List<String>}.
+     * {@code java.util.Map<java.lang.String,? extends java.lang.Number[]> -> Map<String, ? extends Number[]>}.
+     * Whitespace is normalized to a single space after commas and between
+     * words. Results are kept in a small LRU cache.
      */
     static String removePackagesFromGenericsType(String fullName) {
-        final List<String> list = new ArrayList<>();
-        int idx = 0, counter = 0;
-        for (char c : fullName.toCharArray()) {
+        synchronized (CACHE) {
+            String simpleName = CACHE.get(fullName);
+            if (simpleName != null) {
+                return simpleName;
+            }
+        }
+        String simpleName = simplify(fullName);
+        synchronized (CACHE) {
+            CACHE.put(fullName, simpleName);
+        }
+        return simpleName;
+    }
+
+    /**
+     * Scans the type once, copying the simple names and the delimiters.
+     * Same as {@link #removePackagesFromGenericsType} without the cache.
+     */
+    static String simplify(String fullName) {
+        StringBuilder buf = BUFFER.get();
+        buf.setLength(0);
+        boolean pendingSpace = false;
+        int length = fullName.length();
+        int i = 0;
+        while (i < length) {
+            char c = fullName.charAt(i);
+            if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                int lastDot = -1;
+                while (i < length) {
+                    char p = fullName.charAt(i);
+                    if (p == '.' && i + 1 < length && Character.isJavaIdentifierStart(fullName.charAt(i + 1))) {
+                        lastDot = i;
+                    } else if (!Character.isJavaIdentifierPart(p)) {
+                        break;
+                    }
+                    i++;
+                }
+                appendSpace(buf, pendingSpace);
+                pendingSpace = false;
+                buf.append(fullName, lastDot == -1 ? start : lastDot + 1, i);
+                continue;
+            }
             switch (c) {
                 case ',':
+                    buf.append(", ");
+                    pendingSpace = false;
+                    break;
                 case '<':
                 case '>':
-                    list.add(fullName.substring(idx, counter));
-                    list.add(String.valueOf(c));
-                    idx = counter + 1;
+                case '[':
+                case ']':
+                case '.':
+                    buf.append(c);
+                    pendingSpace = false;
                     break;
+                default:
+                    if (Character.isWhitespace(c)) {
+                        pendingSpace = true;
+                    } else {
+                        appendSpace(buf, pendingSpace);
+                        pendingSpace = false;
+                        buf.append(c);
+                    }
             }
-            counter++;
-        }
-        if (list.isEmpty()) {
-            return removePackageFromType(fullName);
+            i++;
         }
-        StringBuilder buf = new StringBuilder();
-        for (String s : list) {
-            if ("<>,".contains(s)) {
-                buf.append(s);
-            } else {
-                buf.append(removePackageFromType(s));
+        return buf.toString();
+    }
+
+    private static void appendSpace(StringBuilder buf, boolean pendingSpace) {
+        if (pendingSpace && buf.length() > 0) {
+            char last = buf.charAt(buf.length() - 1);
+            if (last != ' ' && last != '<' && last != '@') {
+                buf.append(' ');
             }
         }
-        return buf.toString();
     }
 
     /** Removes the package from a single class name (don't manage generics). */
@@ -0,0 +1,380 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreeScanner;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import org.netbeans.api.java.source.ClassIndex;
+import org.netbeans.api.java.source.CompilationInfo;
+import org.netbeans.api.java.source.ElementHandle;
+import org.netbeans.api.java.source.TreeMaker;
+import org.netbeans.api.java.source.WorkingCopy;
+import org.openide.filesystems.FileObject;
+
+/**
+ * A field declared as an {@code ObjectProperty} of a boxed type, which is
+ * converted to the matching primitive specialization so that reads and writes
+ * don't box:
+ *
+ * <pre>
+ * private final ObjectProperty&lt;Integer&gt; count = new SimpleObjectProperty&lt;&gt;(this, "count", 0);
+ * </pre>
+ * becomes
+ * <pre>
+ * private final IntegerProperty count = new SimpleIntegerProperty(this, "count", 0);
+ * </pre>
+ *
+ * Only fields the class declares with a {@code new SimpleObjectProperty}
+ * initializer giving a non {@code null} initial value are converted, since
+ * the primitive properties can't hold {@code null}. The {@code getValue()} and
+ * {@code setValue(...)} calls on the field within the class become
+ * {@code get()} and {@code set(...)}.
+ *
+ * Since the accessors change their types, a conversion that could break
+ * other code is refused: no field of a class is converted while another
+ * source file references its methods or fields or extends it, and a field
+ * is not converted if its file uses it, or its accessors, other than through
+ * those {@code getValue()} and {@code setValue(...)} calls and within the
+ * accessors themselves.
+ *
+ */
+final class PrimitiveProperty {
+
+    private static final Logger LOG = Logger.getLogger(PrimitiveProperty.class.getName());
+
+    private static final String JAVAFX_PROPERTY_PACKAGE = "javafx.beans.property."; // NOI18N
+    private static final String OBJECT_PROPERTY = JAVAFX_PROPERTY_PACKAGE + "ObjectProperty<"; // NOI18N
+    private static final String SIMPLE_OBJECT_PROPERTY = "SimpleObjectProperty"; // NOI18N
+
+    /**
+     * The specialized property names by boxed type, i.e. {@code Integer} to
+     * {@code Integer}Property. {@code Boolean} is not converted, since the
+     * getter of a {@code BooleanProperty} is named {@code is*} instead of
+     * {@code get*} and the callers of the old one would break.
+     */
+    private static final Map<String, String> SPECIALIZATIONS;
+
+    static {
+        SPECIALIZATIONS = new HashMap<>();
+        SPECIALIZATIONS.put("java.lang.Integer", "Integer"); // NOI18N
+        SPECIALIZATIONS.put("java.lang.Long", "Long"); // NOI18N
+        SPECIALIZATIONS.put("java.lang.Float", "Float"); // NOI18N
+        SPECIALIZATIONS.put("java.lang.Double", "Double"); // NOI18N
+    }
+
+    private final VariableTree variable;
+    private final PropertyField converted;
+
+    private PrimitiveProperty(VariableTree variable, PropertyField converted) {
+        this.variable = variable;
+        this.converted = converted;
+    }
+
+    /**
+     * Finds the fields declared by the class that can be converted without
+     * breaking other code, keyed by field name.
+     */
+    static Map<String, PrimitiveProperty> analyze(CompilationInfo info, TypeElement type,
+            ClassTree classTree, List<PropertyField> fields) {
+        Map<String, PrimitiveProperty> result = new HashMap<>();
+        for (PropertyField field : fields) {
+            String specialization = getSpecialization(field);
+            if (specialization == null) {
+                continue;
+            }
+            VariableTree variable = findField(classTree, field.getName());
+            if (variable == null
+                    || variable.getModifiers().getFlags().contains(Modifier.STATIC)
+                    || !isConvertible(variable.getInitializer())) {
+                continue;
+            }
+            PropertyField converted = new PropertyField(field.getHandle(), field.getName(),
+                    JAVAFX_PROPERTY_PACKAGE + specialization + "Property", // NOI18N
+                    AccessorConventions.replaceWithPrimitive(specialization));
+            result.put(field.getName(), new PrimitiveProperty(variable, converted));
+        }
+        if (!result.isEmpty() && isReferencedElsewhere(info, type)) {
+            return Collections.emptyMap();
+        }
+        result.keySet().removeAll(findOtherUses(info.getCompilationUnit(), classTree, result.keySet()));
+        return result;
+    }
+
+    /**
+     * Checks the Java index for other source files using the members of
+     * {@code type} or extending it. An index that can't answer, i.e. while
+     * it is being scanned, counts as a reference.
+     */
+    private static boolean isReferencedElsewhere(CompilationInfo info, TypeElement type) {
+        Set<FileObject> files = info.getClasspathInfo().getClassIndex().getResources(ElementHandle.create(type),
+                EnumSet.of(ClassIndex.SearchKind.METHOD_REFERENCES, ClassIndex.SearchKind.FIELD_REFERENCES,
+                        ClassIndex.SearchKind.IMPLEMENTORS),
+                EnumSet.of(ClassIndex.SearchScope.SOURCE));
+        if (files == null) {
+            LOG.log(Level.INFO, "Not converting the properties of {0} to primitive ones, " // NOI18N
+                    + "the Java index is not ready", type.getQualifiedName()); // NOI18N
+            return true;
+        }
+        files.remove(info.getFileObject());
+        if (files.isEmpty()) {
+            return false;
+        }
+        LOG.log(Level.INFO, "Not converting the properties of {0} to primitive ones, used by {1}", // NOI18N
+                new Object[]{type.getQualifiedName(), files});
+        return true;
+    }
+
+    /**
+     * Finds the fields among {@code names} which the compilation unit uses in
+     * a way the conversion doesn't rewrite: the field other than as the
+     * target of a {@code getValue()} or {@code setValue(...)} call, or one of
+     * its accessors, outside of the accessors of the field in the class.
+     * Names are matched without attribution, so a local variable of the same
+     * name prevents the conversion as well.
+     */
+    static Set<String> findOtherUses(CompilationUnitTree compilationUnit, final ClassTree classTree,
+            Set<String> names) {
+        final Map<String, String> referencedNames = new HashMap<>();
+        for (String name : names) {
+            referencedNames.put(name, name);
+            for (String getterName : AccessorConventions.getGetterNames(name)) {
+                referencedNames.put(getterName, name);
+            }
+            referencedNames.put(AccessorConventions.getSetterName(name), name);
+            referencedNames.put(AccessorConventions.getPropertyMethodName(name), name);
+        }
+        final Set<String> used = new HashSet<>();
+        new TreeScanner<Void, String>() {
+            @Override
+            public Void visitClass(ClassTree node, String accessorOf) {
+                if (node != classTree) {
+                    return super.visitClass(node, accessorOf);
+                }
+                for (Tree member : node.getMembers()) {
+                    scan(member, member.getKind() == Tree.Kind.METHOD
+                            ? getAccessorField(((MethodTree) member).getName().toString())
+                            : null);
+                }
+                return null;
+            }
+
+            @Override
+            public Void visitMethodInvocation(MethodInvocationTree node, String accessorOf) {
+                if (node.getMethodSelect().getKind() == Tree.Kind.MEMBER_SELECT && isRewritten(node)) {
+                    // the field itself is fine as the target, only the arguments are checked
+                    scan(node.getArguments(), accessorOf);
+                    return null;
+                }
+                return super.visitMethodInvocation(node, accessorOf);
+            }
+
+            @Override
+            public Void visitIdentifier(IdentifierTree node, String accessorOf) {
+                use(node.getName().toString(), accessorOf);
+                return null;
+            }
+
+            @Override
+            public Void visitMemberSelect(MemberSelectTree node, String accessorOf) {
+                use(node.getIdentifier().toString(), accessorOf);
+                return super.visitMemberSelect(node, accessorOf);
+            }
+
+            /** The field a method of the class is an accessor of, else {@code null}. */
+            private String getAccessorField(String methodName) {
+                String field = referencedNames.get(methodName);
+                return field == null || field.equals(methodName) ? null : field;
+            }
+
+            private void use(String name, String accessorOf) {
+                String field = referencedNames.get(name);
+                if (field != null && !field.equals(accessorOf)) {
+                    used.add(field);
+                }
+            }
+        }.scan(compilationUnit, null);
+        return used;
+    }
+
+    /** A {@code getValue()} or {@code setValue(...)} call on {@code name} or {@code this.name}. */
+    private static boolean isRewritten(MethodInvocationTree node) {
+        MemberSelectTree select = (MemberSelectTree) node.getMethodSelect();
+        String method = select.getIdentifier().toString();
+        int arguments = node.getArguments().size();
+        return ("getValue".equals(method) && arguments == 0 // NOI18N
+                || "setValue".equals(method) && arguments == 1) // NOI18N
+                && getFieldName(select.getExpression()) != null;
+    }
+
+    /** The fields with the converted ones replaced, in the same order. */
+    static List<PropertyField> convertFields(List<PropertyField> fields, Map<String, PrimitiveProperty> primitives) {
+        if (primitives.isEmpty()) {
+            return fields;
+        }
+        List<PropertyField> result = new ArrayList<>(fields.size());
+        for (PropertyField field : fields) {
+            PrimitiveProperty primitive = primitives.get(field.getName());
+            result.add(primitive == null ? field : primitive.converted);
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the type and the initializer of the fields and rewrites the
+     * {@code getValue()} and {@code setValue(...)} calls on them.
+     *
+     * @return the updated class, or {@code classTree} itself if there was
+     * nothing to convert
+     */
+    static ClassTree rewriteFields(WorkingCopy wc, ClassTree classTree, Map<String, PrimitiveProperty> primitives) {
+        if (primitives.isEmpty()) {
+            return classTree;
+        }
+        TreeMaker make = wc.getTreeMaker();
+        rewriteCalls(wc, classTree, primitives);
+        ClassTree result = classTree;
+        for (PrimitiveProperty primitive : primitives.values()) {
+            VariableTree variable = primitive.variable;
+            int index = result.getMembers().indexOf(variable);
+            if (index == -1) {
+                continue;
+            }
+            String propertyType = primitive.converted.getQualifiedPropertyType();
+            NewClassTree creation = (NewClassTree) variable.getInitializer();
+            VariableTree primitiveVariable = make.Variable(variable.getModifiers(),
+                    variable.getName(),
+                    make.QualIdent(propertyType),
+                    make.NewClass(null,
+                            Collections.<ExpressionTree>emptyList(),
+                            make.QualIdent(JAVAFX_PROPERTY_PACKAGE + "Simple" // NOI18N
+                                    + propertyType.substring(JAVAFX_PROPERTY_PACKAGE.length())),
+                            creation.getArguments(),
+                            null));
+            result = make.removeClassMember(result, variable);
+            result = make.insertClassMember(result, index, primitiveVariable);
+        }
+        return result;
+    }
+
+    /**
+     * The call sites are matched by name only, as method bodies are not
+     * attributed; {@code get()} and {@code set(...)} exist on every writable
+     * object value, so a local variable shadowing the field is still fine.
+     */
+    private static void rewriteCalls(final WorkingCopy wc, ClassTree classTree,
+            final Map<String, PrimitiveProperty> primitives) {
+        final TreeMaker make = wc.getTreeMaker();
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitMethodInvocation(MethodInvocationTree node, Void p) {
+                if (node.getMethodSelect().getKind() == Tree.Kind.MEMBER_SELECT && isRewritten(node)) {
+                    MemberSelectTree select = (MemberSelectTree) node.getMethodSelect();
+                    if (primitives.containsKey(getFieldName(select.getExpression()))) {
+                        wc.rewrite(select, make.MemberSelect(select.getExpression(),
+                                node.getArguments().isEmpty() ? "get" : "set")); // NOI18N
+                    }
+                }
+                return super.visitMethodInvocation(node, p);
+            }
+        }.scan(classTree, null);
+    }
+
+    /** The field name of {@code name} or {@code this.name}, else {@code null}. */
+    private static String getFieldName(ExpressionTree expression) {
+        if (expression.getKind() == Tree.Kind.IDENTIFIER) {
+            return ((IdentifierTree) expression).getName().toString();
+        }
+        if (expression.getKind() == Tree.Kind.MEMBER_SELECT) {
+            MemberSelectTree select = (MemberSelectTree) expression;
+            if (select.getExpression().getKind() == Tree.Kind.IDENTIFIER
+                    && ((IdentifierTree) select.getExpression()).getName().contentEquals("this")) { // NOI18N
+                return select.getIdentifier().toString();
+            }
+        }
+        return null;
+    }
+
+    /** The specialization of an {@code ObjectProperty} of a boxed type, else {@code null}. */
+    private static String getSpecialization(PropertyField field) {
+        String type = field.getQualifiedPropertyType();
+        if (!type.startsWith(OBJECT_PROPERTY) || !type.endsWith(">")) { // NOI18N
+            return null;
+        }
+        return SPECIALIZATIONS.get(type.substring(OBJECT_PROPERTY.length(), type.length() - 1));
+    }
+
+    /**
+     * A {@code new SimpleObjectProperty} with an explicit initial value which
+     * is not {@code null}; without one the property starts as {@code null}.
+     */
+    private static boolean isConvertible(ExpressionTree initializer) {
+        if (initializer == null || initializer.getKind() != Tree.Kind.NEW_CLASS) {
+            return false;
+        }
+        NewClassTree creation = (NewClassTree) initializer;
+        String identifier = creation.getIdentifier().toString();
+        int typeArguments = identifier.indexOf('<');
+        String rawType = typeArguments == -1 ? identifier : identifier.substring(0, typeArguments);
+        if (creation.getClassBody() != null
+                || !rawType.substring(rawType.lastIndexOf('.') + 1).equals(SIMPLE_OBJECT_PROPERTY)) {
+            return false;
+        }
+        List<? extends ExpressionTree> arguments = creation.getArguments();
+        return (arguments.size() == 1 || arguments.size() == 3)
+                && arguments.get(arguments.size() - 1).getKind() != Tree.Kind.NULL_LITERAL;
+    }
+
+    private static VariableTree findField(ClassTree classTree, String name) {
+        for (Tree member : classTree.getMembers()) {
+            if (member.getKind() == Tree.Kind.VARIABLE
+                    && ((VariableTree) member).getName().contentEquals(name)) {
+                return (VariableTree) member;
+            }
+        }
+        return null;
+    }
+
+}
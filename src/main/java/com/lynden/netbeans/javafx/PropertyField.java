@@ -0,0 +1,122 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import org.netbeans.api.java.source.ElementHandle;
+
+/**
+ * Plain description of a property field. Unlike a {@link VariableElement} it
+ * doesn't keep the compilation it was read from alive; use the handle to get
+ * the element back from a later compilation.
+ *
+ */
+public final class PropertyField {
+
+    private final ElementHandle<VariableElement> handle;
+    private final String name;
+    private final String propertyType;
+    private final String valueType;
+    private final String qualifiedPropertyType;
+    private final String qualifiedValueType;
+
+    PropertyField(ElementHandle<VariableElement> handle, String name,
+            String qualifiedPropertyType, String qualifiedValueType) {
+        this.handle = handle;
+        this.name = name;
+        this.qualifiedPropertyType = qualifiedPropertyType;
+        this.qualifiedValueType = qualifiedValueType;
+        this.propertyType = PackageHelper.removePackagesFromGenericsType(qualifiedPropertyType);
+        this.valueType = PackageHelper.removePackagesFromGenericsType(qualifiedValueType);
+    }
+
+    /**
+     * @param element the field
+     * @param fieldType the type of the field, as a member of the class the
+     * accessors are generated for
+     * @param valueType the type returned by the {@code get()} method of the
+     * property, or {@code null} if it's unknown
+     */
+    static PropertyField create(VariableElement element, TypeMirror fieldType, TypeMirror valueType) {
+        String qualifiedPropertyType = fieldType.toString();
+        String qualifiedValueType = valueType != null
+                ? valueType.toString()
+                : guessValueType(qualifiedPropertyType);
+        return new PropertyField(ElementHandle.create(element),
+                element.getSimpleName().toString(),
+                qualifiedPropertyType,
+                qualifiedValueType);
+    }
+
+    public ElementHandle<VariableElement> getHandle() {
+        return handle;
+    }
+
+    /** The name of the field. */
+    public String getName() {
+        return name;
+    }
+
+    /** The simple type of the field, i.e. {@code ObjectProperty<LocalDate>}. */
+    public String getPropertyType() {
+        return propertyType;
+    }
+
+    /**
+     * The simple type of the property value, as used by the getter and the
+     * setter, i.e. {@code int} or {@code ObservableList<Order>}.
+     */
+    public String getValueType() {
+        return valueType;
+    }
+
+    /** The fully qualified type of the field. */
+    public String getQualifiedPropertyType() {
+        return qualifiedPropertyType;
+    }
+
+    /** The fully qualified type of the property value. */
+    public String getQualifiedValueType() {
+        return qualifiedValueType;
+    }
+
+    /**
+     * Falls back to the type name for properties without a {@code get()}
+     * method: {@code IntegerProperty} becomes {@code int}.
+     */
+    private static String guessValueType(String qualifiedPropertyType) {
+        String fullProp = PackageHelper.removePackagesFromGenericsType(qualifiedPropertyType);
+        int index = fullProp.indexOf("Prop"); // NOI18N
+
+        return index > 0 ? AccessorConventions.replaceWithPrimitive(fullProp.substring(0, index)) : "Object"; // NOI18N
+    }
+
+    @Override
+    public String toString() {
+        return name + ":" + propertyType;
+    }
+
+}
@@ -24,23 +24,25 @@ SOFTWARE.
 package com.lynden.netbeans.javafx;
 
 import com.sun.source.tree.AnnotationTree;
+import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.TypeParameterTree;
 import com.sun.source.tree.VariableTree;
+import com.sun.source.util.SourcePositions;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import javax.lang.model.element.Element;
 import javax.lang.model.element.Modifier;
-import javax.lang.model.element.VariableElement;
+import org.netbeans.api.java.source.CompilationInfo;
 import org.netbeans.api.java.source.TreeMaker;
 
 /**
@@ -48,107 +50,334 @@ import org.netbeans.api.java.source.TreeMaker;
  */
 public class PropertyMethodBuilder {
     
-    private static final String PROPERTY = "Property"; // NOI18N
-    private static final Map<String,String> PRIMITIVES_MAP;
-
-    static {
-	PRIMITIVES_MAP = new HashMap<>();
-	PRIMITIVES_MAP.put("Integer", "int");
-	PRIMITIVES_MAP.put("Float", "float");
-	PRIMITIVES_MAP.put("Double", "double");
-	PRIMITIVES_MAP.put("Boolean", "boolean");
-	PRIMITIVES_MAP.put("Long", "long");
-    }
-
-    private static String replaceWithPrimitive(String typeName) {
-	return PRIMITIVES_MAP.getOrDefault(typeName, typeName);
-    }
-
     private final TreeMaker make;
     private final List<Tree> members;
-    private final List<VariableElement> elements;
-    private final String className;
+    private final List<PropertyField> fields;
+    private GenerationBudget budget = new GenerationBudget(0);
+    private Map<String, PropertyField> accessorIndex;
+    private Map<String, LazyProperty> lazyProperties = Collections.emptyMap();
 
-	    
 
     public PropertyMethodBuilder(TreeMaker make,
             List<Tree> members,
-            List<VariableElement> elements,
-            String className) {
+            List<PropertyField> fields) {
         this.make = make;
         this.members = members;
-        this.elements = elements;
-        this.className = className;
+        this.fields = fields;
+    }
+
+    /** Sets the budget checked between the members processed. */
+    PropertyMethodBuilder budget(final GenerationBudget value) {
+        this.budget = value;
+        return this;
     }
 
-    int removeExistingPropMethods(int index) {
+    /**
+     * Removes the existing accessors of the fields and inserts the new ones at
+     * {@code index}, rebuilding the member list in a single pass.
+     *
+     * @param index the member index the caret is at, in the current list
+     */
+    void replacePropMethods(int index) {
+        if( fields == null ) {
+            return;
+        }
+        Map<String, PropertyField> accessors = getAccessorIndex();
+        List<Tree> block = createPropMethods();
+        List<Tree> result = new ArrayList<>(members.size() + block.size());
         int counter = 0;
-        if( elements == null ) {
-            return 0;
+        for (Tree member : members) {
+            budget.check();
+            if (counter == index) {
+                result.addAll(block);
+            }
+            if (!isAccessor(member, accessors)) {
+                result.add(member);
+            }
+            counter++;
+        }
+        if (index >= counter) {
+            result.addAll(block);
+        }
+        members.clear();
+        members.addAll(result);
+    }
+
+    /**
+     * Updates only the accessors which differ from the ones that would be
+     * generated: up to date accessors are left alone, stale ones are replaced
+     * in place and missing ones are inserted at {@code index}. Accessors are
+     * compared on their source with whitespace removed.
+     *
+     * @return the updated class, or {@code classTree} itself when every
+     * accessor is already up to date
+     */
+    ClassTree mergePropMethods(CompilationInfo info, ClassTree classTree, int index) {
+        if( fields == null ) {
+            return classTree;
+        }
+        Map<String, PropertyField> accessors = getAccessorIndex();
+        Map<String, Accessor> expected = getExpectedAccessors();
+        Set<Tree> stale = Collections.newSetFromMap(new IdentityHashMap<Tree, Boolean>());
+        Map<Tree, Accessor> replacements = new IdentityHashMap<>();
+
+        for (Tree member : classTree.getMembers()) {
+            budget.check();
+            if (!isAccessor(member, accessors)) {
+                continue;
+            }
+            Accessor accessor = expected.get(((MethodTree) member).getName().toString());
+            if (accessor != null && !accessor.present
+                    && accessor.source.equals(getMemberSource(info, member))) {
+                accessor.present = true;
+            } else {
+                stale.add(member);
+                if (accessor != null && !accessor.present) {
+                    accessor.present = true;
+                    replacements.put(member, accessor);
+                }
+            }
+        }
+        List<Accessor> missing = new ArrayList<>();
+        for (Accessor accessor : expected.values()) {
+            if (!accessor.present) {
+                missing.add(accessor);
+            }
+        }
+        if (stale.isEmpty() && missing.isEmpty()) {
+            return classTree;
         }
-        for (Iterator<Tree> treeIt = members.iterator(); treeIt.hasNext();) {
-            Tree member = treeIt.next();
-
-            if (member.getKind().equals(Tree.Kind.METHOD)) {
-                MethodTree mt = (MethodTree) member;
-                for (Element element : elements) {
-                    if( mt.getName().contentEquals(getGetterName(element.getSimpleName().toString()) ) ||
-			mt.getName().contentEquals(getGetterName(element.getSimpleName().toString(), "is") ) ||
-
-                        mt.getName().contentEquals(getSetterName(element.getSimpleName().toString()) ) ||
-                        mt.getName().contentEquals(getPropertyMethodName(element.getSimpleName().toString()))) {
-                            
-                    treeIt.remove();
-                    if (index > counter) {
-                        index--;
-                    }
-                    break;
-                    }
+
+        ClassTree result = classTree;
+        int position = 0;
+        int counter = 0;
+        for (Tree member : classTree.getMembers()) {
+            budget.check();
+            if (counter == index) {
+                for (Accessor accessor : missing) {
+                    result = insertMember(result, position++, createAccessor(accessor));
+                }
+            }
+            if (stale.contains(member)) {
+                result = removeMember(result, member);
+                Accessor replacement = replacements.get(member);
+                if (replacement != null) {
+                    result = insertMember(result, position++, createAccessor(replacement));
                 }
+            } else {
+                position++;
             }
             counter++;
         }
-        return index;
+        if (index >= counter) {
+            for (Accessor accessor : missing) {
+                result = insertMember(result, position++, createAccessor(accessor));
+            }
+        }
+        return result;
     }
 
-    void addPropMethods(int index) {
+    /** The source of an existing member with whitespace removed, compared to the expected accessor. */
+    protected String getMemberSource(CompilationInfo info, Tree member) {
+        return getNormalizedSource(info, member);
+    }
 
-        if( elements == null ) {
-            return;
+    protected ClassTree insertMember(ClassTree classTree, int index, Tree member) {
+        return make.insertClassMember(classTree, index, member);
+    }
+
+    protected ClassTree removeMember(ClassTree classTree, Tree member) {
+        return make.removeClassMember(classTree, member);
+    }
+
+    /**
+     * The source of the accessors missing from the class, unindented and in
+     * the order they are generated, for a plain text insertion.
+     *
+     * @return {@code null} if an accessor is stale or left over, since only a
+     * tree rewrite can replace it
+     */
+    List<String> getMissingAccessorSources(CompilationInfo info, ClassTree classTree) {
+        if( fields == null ) {
+            return Collections.emptyList();
+        }
+        Map<String, PropertyField> accessors = getAccessorIndex();
+        Map<String, Accessor> expected = getExpectedAccessors();
+        for (Tree member : classTree.getMembers()) {
+            budget.check();
+            if (!isAccessor(member, accessors)) {
+                continue;
+            }
+            Accessor accessor = expected.get(((MethodTree) member).getName().toString());
+            if (accessor == null || accessor.present
+                    || !accessor.source.equals(getNormalizedSource(info, member))) {
+                return null;
+            }
+            accessor.present = true;
+        }
+        List<String> missing = new ArrayList<>();
+        for (Accessor accessor : expected.values()) {
+            if (!accessor.present) {
+                missing.add(accessor.text);
+            }
         }
-        
-        int position = index - 1;
-        for (VariableElement element : elements) {
+        return missing;
+    }
 
-            position = Math.min(position + 1, members.size());
-            members.add(position, createSetMethod(element));
-            position = Math.min(position + 1, members.size());
-            members.add(position, createGetMethod(element));
-            position = Math.min(position + 1, members.size());
-            members.add(position, createPropertyMethod(element));
+    /**
+     * Checks the accessors of the fields without changing the class.
+     *
+     * @return the names of the accessors which are missing, stale or left
+     * over, like a getter with the wrong prefix, keyed by field in the
+     * order of the fields; only fields with such accessors are included
+     */
+    Map<PropertyField, List<String>> findInvalidAccessors(CompilationInfo info, ClassTree classTree) {
+        Map<PropertyField, List<String>> invalid = new LinkedHashMap<>();
+        if( fields == null ) {
+            return invalid;
+        }
+        Map<String, PropertyField> accessors = getAccessorIndex();
+        Map<String, Accessor> expected = getExpectedAccessors();
+        for (Tree member : classTree.getMembers()) {
+            budget.check();
+            if (!isAccessor(member, accessors)) {
+                continue;
+            }
+            String name = ((MethodTree) member).getName().toString();
+            Accessor accessor = expected.get(name);
+            if (accessor != null && !accessor.present
+                    && accessor.source.equals(getNormalizedSource(info, member))) {
+                accessor.present = true;
+            } else {
+                if (accessor != null) {
+                    accessor.present = true;
+                }
+                addInvalid(invalid, accessors.get(name), name);
+            }
+        }
+        for (Map.Entry<String, Accessor> entry : expected.entrySet()) {
+            if (!entry.getValue().present) {
+                addInvalid(invalid, entry.getValue().field, entry.getKey());
+            }
+        }
+        Map<PropertyField, List<String>> ordered = new LinkedHashMap<>();
+        for (PropertyField field : fields) {
+            if (invalid.containsKey(field)) {
+                ordered.put(field, invalid.get(field));
+            }
+        }
+        return ordered;
+    }
 
+    private static void addInvalid(Map<PropertyField, List<String>> invalid, PropertyField field, String name) {
+        List<String> names = invalid.get(field);
+        if (names == null) {
+            names = new ArrayList<>(3);
+            invalid.put(field, names);
         }
+        names.add(name);
     }
 
-    protected MethodTree createGetMethod(VariableElement element) {
-        Set<Modifier> modifiers = EnumSet.of(Modifier.PUBLIC, Modifier.FINAL);
-        List<AnnotationTree> annotations = new ArrayList<>();
-	String typeName = replaceWithPrimitive(toStringWithoutPackages(element));
-        VariableTree parameter = make.Variable(make.Modifiers(new HashSet<Modifier>(), Collections.<AnnotationTree>emptyList()), "value", make.Identifier(typeName),
-                null);
+    /** Sets the fields whose accessors use the lazy pattern, keyed by field name. */
+    PropertyMethodBuilder lazyProperties(final Map<String, LazyProperty> value) {
+        this.lazyProperties = value;
+        return this;
+    }
+
+    /** Creates the setter, getter and property method of every field, in order. */
+    private List<Tree> createPropMethods() {
+        List<Tree> block = new ArrayList<>(fields.size() * 3);
+        for (PropertyField field : fields) {
+            budget.check();
 
-        ExpressionTree returnType = make.QualIdent(parameter.getType().toString());
+            block.add(createSetMethod(field));
+            block.add(createGetMethod(field));
+            block.add(createPropertyMethod(field));
+        }
+        return block;
+    }
 
-        final String bodyText = createPropGetterMethodBody(element);
+    /**
+     * Maps the name of every accessor that could have been generated for the
+     * fields, with both the "get" and "is" getter prefix, to its field.
+     */
+    private Map<String, PropertyField> getAccessorIndex() {
+        if (accessorIndex == null) {
+            Map<String, PropertyField> map = new HashMap<>(fields.size() * 6);
+            for (PropertyField field : fields) {
+                String fieldName = field.getName();
+                for (String getterName : AccessorConventions.getGetterNames(fieldName)) {
+                    map.put(getterName, field);
+                }
+                map.put(AccessorConventions.getSetterName(fieldName), field);
+                map.put(AccessorConventions.getPropertyMethodName(fieldName), field);
+            }
+            accessorIndex = map;
+        }
+        return accessorIndex;
+    }
 
-	String setterPrefix = ("boolean".equals(typeName)) ? "is" : "get"; 
+    /**
+     * The accessors which would be generated, keyed by name, in the order
+     * they are generated.
+     */
+    private Map<String, Accessor> getExpectedAccessors() {
+        Map<String, Accessor> map = new LinkedHashMap<>(fields.size() * 4);
+        for (PropertyField field : fields) {
+            String fieldName = field.getName();
+            String typeName = field.getValueType();
+
+            map.put(AccessorConventions.getSetterName(fieldName), new Accessor(field, AccessorKind.SETTER,
+                    AccessorConventions.createSetterDeclaration(fieldName, typeName) + " " // NOI18N
+                    + createPropSetterMethodBody(field)));
+            map.put(AccessorConventions.getGetterName(fieldName, typeName), new Accessor(field, AccessorKind.GETTER,
+                    AccessorConventions.createGetterDeclaration(fieldName, typeName) + " " // NOI18N
+                    + createPropGetterMethodBody(field)));
+            map.put(AccessorConventions.getPropertyMethodName(fieldName), new Accessor(field, AccessorKind.PROPERTY,
+                    AccessorConventions.createPropertyMethodDeclaration(fieldName, field.getPropertyType()) + " " // NOI18N
+                    + createPropertyMethodBody(field)));
+        }
+        return map;
+    }
+
+    private MethodTree createAccessor(Accessor accessor) {
+        switch (accessor.kind) {
+            case SETTER:
+                return createSetMethod(accessor.field);
+            case GETTER:
+                return createGetMethod(accessor.field);
+            default:
+                return createPropertyMethod(accessor.field);
+        }
+    }
+
+    static String getNormalizedSource(CompilationInfo info, Tree member) {
+        SourcePositions sp = info.getTrees().getSourcePositions();
+        long start = sp.getStartPosition(info.getCompilationUnit(), member);
+        long end = sp.getEndPosition(info.getCompilationUnit(), member);
+        if (start < 0 || end < start) {
+            return null;
+        }
+        return AccessorConventions.stripWhitespace(info.getText().subSequence((int) start, (int) end));
+    }
+
+    private static boolean isAccessor(Tree member, Map<String, PropertyField> accessors) {
+        return member.getKind() == Tree.Kind.METHOD
+                && accessors.containsKey(((MethodTree) member).getName().toString());
+    }
+
+    protected MethodTree createGetMethod(PropertyField field) {
+        Set<Modifier> modifiers = EnumSet.of(Modifier.PUBLIC, Modifier.FINAL);
+        List<AnnotationTree> annotations = new ArrayList<>();
+        Tree returnType = make.Type(field.getQualifiedValueType());
+
+        final String bodyText = createPropGetterMethodBody(field);
 
         MethodTree method = make.Method(
                 make.Modifiers(modifiers, annotations),
-                getGetterName(element.getSimpleName().toString(), setterPrefix),
+                AccessorConventions.getGetterName(field.getName(), field.getValueType()),
                 returnType,
                 Collections.<TypeParameterTree>emptyList(),
-                //Collections.<VariableTree>singletonList(parameter),
                 Collections.<VariableTree>emptyList(),
                 Collections.<ExpressionTree>emptyList(),
                 bodyText,
@@ -158,22 +387,19 @@ public class PropertyMethodBuilder {
 
     }
 
-    protected MethodTree createPropertyMethod(VariableElement element) {
+    protected MethodTree createPropertyMethod(PropertyField field) {
         Set<Modifier> modifiers = EnumSet.of(Modifier.PUBLIC, Modifier.FINAL);
         List<AnnotationTree> annotations = new ArrayList<>();
-        VariableTree parameter = make.Variable(make.Modifiers(new HashSet<Modifier>(), Collections.<AnnotationTree>emptyList()), "value", make.Identifier(toStringWithoutPackages(element)),
-                null);
 
-        ExpressionTree returnType = make.QualIdent(parameter.getType().toString() + PROPERTY);
+        Tree returnType = make.Type(field.getQualifiedPropertyType());
 
-        final String bodyText = createPropertyMethodBody(element);
+        final String bodyText = createPropertyMethodBody(field);
 
         MethodTree method = make.Method(
                 make.Modifiers(modifiers, annotations),
-                getPropertyMethodName(element.getSimpleName().toString()),
+                AccessorConventions.getPropertyMethodName(field.getName()),
                 returnType,
                 Collections.<TypeParameterTree>emptyList(),
-                //Collections.<VariableTree>singletonList(parameter),
                 Collections.<VariableTree>emptyList(),
                 Collections.<ExpressionTree>emptyList(),
                 bodyText,
@@ -183,23 +409,21 @@ public class PropertyMethodBuilder {
 
     }
 
-    protected MethodTree createSetMethod(VariableElement element) {
+    protected MethodTree createSetMethod(PropertyField field) {
         Set<Modifier> modifiers = EnumSet.of(Modifier.PUBLIC, Modifier.FINAL);
         List<AnnotationTree> annotations = new ArrayList<>();
-	String typeName = replaceWithPrimitive(toStringWithoutPackages(element));
-        VariableTree parameter = make.Variable(make.Modifiers(new HashSet<Modifier>(), Collections.<AnnotationTree>emptyList()), "value", make.Identifier(typeName),
+        VariableTree parameter = make.Variable(make.Modifiers(new HashSet<Modifier>(), Collections.<AnnotationTree>emptyList()), "value", make.Type(field.getQualifiedValueType()),
                 null);
 
         ExpressionTree returnType = make.QualIdent("void");
 
-        final String bodyText = createPropSetterMethodBody(element);
+        final String bodyText = createPropSetterMethodBody(field);
 
         MethodTree method = make.Method(
                 make.Modifiers(modifiers, annotations),
-                getSetterName(element.getSimpleName().toString()),
+                AccessorConventions.getSetterName(field.getName()),
                 returnType,
                 Collections.<TypeParameterTree>emptyList(),
-                //Collections.<VariableTree>singletonList(parameter),
                 Collections.<VariableTree>singletonList(parameter),
                 Collections.<ExpressionTree>emptyList(),
                 bodyText,
@@ -209,94 +433,46 @@ public class PropertyMethodBuilder {
 
     }
 
-    protected String createPropertyMethodBody(Element element) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\n")
-                .append("return ")
-                .append(element.getSimpleName())
-                .append(";\n}");
-        return sb.toString();
+    protected String createPropertyMethodBody(PropertyField field) {
+        LazyProperty lazy = lazyProperties.get(field.getName());
+        return lazy == null
+                ? AccessorConventions.createPropertyMethodBody(field.getName(), null, null)
+                : AccessorConventions.createPropertyMethodBody(field.getName(),
+                        lazy.getShadowName(), lazy.getImplementation());
     }
 
-    protected String createPropGetterMethodBody(Element element) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\n")
-                .append("return ")
-                .append(element.getSimpleName())
-                .append(".get();\n}");
-        return sb.toString();
+    protected String createPropGetterMethodBody(PropertyField field) {
+        return AccessorConventions.createGetterBody(field.getName(), getShadowName(field));
     }
 
-    protected String createPropSetterMethodBody(Element element) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\n")
-                .append(element.getSimpleName())
-                .append(".set(value);\n}");
-        return sb.toString();
+    protected String createPropSetterMethodBody(PropertyField field) {
+        return AccessorConventions.createSetterBody(field.getName(), getShadowName(field));
     }
 
-    void addFields() {
-        for (VariableElement element : elements) {
-            VariableTree field
-                    = make.Variable(make.Modifiers(
-                                    EnumSet.of(Modifier.PRIVATE),
-                                    Collections.<AnnotationTree>emptyList()),
-                            element.getSimpleName().toString(),
-                            make.Identifier(toStringWithoutPackages(element)),
-                            null);
-
-            members.add(field);
-        }
+    private String getShadowName(PropertyField field) {
+        LazyProperty lazy = lazyProperties.get(field.getName());
+        return lazy == null ? null : lazy.getShadowName();
     }
 
-    private String getPropertyMethodName(String fieldName) {
-        final StringBuilder sb = new StringBuilder();
-        sb.append(this.prepareFieldNameForMethodName(fieldName, Boolean.FALSE));
-        sb.append(PROPERTY);
-        
-        return sb.toString();
+    private enum AccessorKind {
+        SETTER, GETTER, PROPERTY
     }
 
-    private String getSetterName(String fieldName) {
-        final StringBuilder sb = new StringBuilder();
-        sb.append("set");
-        sb.append(this.prepareFieldNameForMethodName(fieldName));
-        
-        return sb.toString();
-    }
+    /** An accessor that would be generated for a field. */
+    private static class Accessor {
 
-    private String getGetterName(String fieldName) {
-        return getGetterName(fieldName, "get");
-    }
+        private final PropertyField field;
+        private final AccessorKind kind;
+        private final String text;
+        private final String source;
+        private boolean present;
 
-    private String getGetterName(String fieldName, String prefix) {
-        final StringBuilder sb = new StringBuilder();
-        sb.append(prefix);
-        sb.append(this.prepareFieldNameForMethodName(fieldName));
-        
-        return sb.toString();
-    }
-    
-    private String prepareFieldNameForMethodName(String fieldName, boolean firstCharToUpperCase) {
-        if (firstCharToUpperCase) {
-            fieldName = fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
-        }
-        
-        if (fieldName.endsWith(PROPERTY)) {
-            fieldName = fieldName.substring(0, fieldName.length() - PROPERTY.length());
+        Accessor(PropertyField field, AccessorKind kind, String text) {
+            this.field = field;
+            this.kind = kind;
+            this.text = text;
+            this.source = AccessorConventions.stripWhitespace(text);
         }
-        
-        return fieldName;
-    }
-    
-    private String prepareFieldNameForMethodName(String fieldName) {
-        return this.prepareFieldNameForMethodName(fieldName, Boolean.TRUE);
-    }
-
-    private static String toStringWithoutPackages(VariableElement element) {
-        String fullProp = PackageHelper.removePackagesFromGenericsType(element.asType().toString());
-
-        return fullProp.substring(0, fullProp.indexOf(("Prop")));
     }
 
 }
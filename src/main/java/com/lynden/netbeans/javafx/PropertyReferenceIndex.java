@@ -0,0 +1,136 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.api.java.source.ClassIndex;
+import org.netbeans.api.java.source.ClasspathInfo;
+import org.netbeans.api.java.source.ElementHandle;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Uses the Java index to find the source files which may declare property
+ * fields, that is the files referencing {@code javafx.beans.property.Property}
+ * or one of its subtypes, so the batch runs don't parse the others.
+ *
+ */
+final class PropertyReferenceIndex {
+
+    private static final ElementHandle<TypeElement> PROPERTY = ElementHandle.createTypeElementHandle(
+            ElementKind.INTERFACE, "javafx.beans.property.Property"); // NOI18N
+
+    private PropertyReferenceIndex() {
+    }
+
+    /**
+     * Keeps the files which reference a JavaFx property type, in their
+     * order. The files of a source root whose index can't be queried, i.e.
+     * while it is being scanned, are all kept.
+     */
+    static List<FileObject> filter(Collection<FileObject> files) {
+        Map<FileObject, List<FileObject>> byRoot = new LinkedHashMap<>();
+        for (FileObject file : files) {
+            ClassPath sourcePath = ClassPath.getClassPath(file, ClassPath.SOURCE);
+            FileObject root = sourcePath == null ? null : sourcePath.findOwnerRoot(file);
+            if (root == null) {
+                continue;
+            }
+            List<FileObject> list = byRoot.get(root);
+            if (list == null) {
+                list = new ArrayList<>();
+                byRoot.put(root, list);
+            }
+            list.add(file);
+        }
+
+        List<FileObject> result = new ArrayList<>(files.size());
+        for (Map.Entry<FileObject, List<FileObject>> entry : byRoot.entrySet()) {
+            Set<FileObject> referencing = findReferencingFiles(ClasspathInfo.create(entry.getKey()).getClassIndex());
+            for (FileObject file : entry.getValue()) {
+                if (referencing == null || referencing.contains(file)) {
+                    result.add(file);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the source files referencing a property type, or {@code null}
+     * if the index could not answer
+     */
+    private static Set<FileObject> findReferencingFiles(ClassIndex index) {
+        Set<ElementHandle<TypeElement>> propertyTypes = findSubtypes(index);
+        if (propertyTypes == null) {
+            return null;
+        }
+        Set<FileObject> files = new HashSet<>();
+        for (ElementHandle<TypeElement> type : propertyTypes) {
+            Set<FileObject> resources = index.getResources(type,
+                    EnumSet.of(ClassIndex.SearchKind.TYPE_REFERENCES),
+                    EnumSet.of(ClassIndex.SearchScope.SOURCE));
+            if (resources == null) {
+                return null;
+            }
+            files.addAll(resources);
+        }
+        return files;
+    }
+
+    /** {@code Property} and all its subtypes, in sources and libraries. */
+    private static Set<ElementHandle<TypeElement>> findSubtypes(ClassIndex index) {
+        Set<ElementHandle<TypeElement>> types = new HashSet<>();
+        Deque<ElementHandle<TypeElement>> queue = new ArrayDeque<>();
+        types.add(PROPERTY);
+        queue.add(PROPERTY);
+        while (!queue.isEmpty()) {
+            Set<ElementHandle<TypeElement>> subtypes = index.getElements(queue.poll(),
+                    EnumSet.of(ClassIndex.SearchKind.IMPLEMENTORS),
+                    EnumSet.of(ClassIndex.SearchScope.SOURCE, ClassIndex.SearchScope.DEPENDENCIES));
+            if (subtypes == null) {
+                return null;
+            }
+            for (ElementHandle<TypeElement> subtype : subtypes) {
+                if (types.add(subtype)) {
+                    queue.add(subtype);
+                }
+            }
+        }
+        return types;
+    }
+
+}
@@ -0,0 +1,298 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import org.netbeans.api.java.source.ClasspathInfo;
+import org.netbeans.api.java.source.CompilationInfo;
+import org.netbeans.api.java.source.ElementHandle;
+
+/**
+ * Recognizes JavaFx property fields using the type model of the compilation
+ * being processed, so no JavaFx class is ever loaded into the IDE.
+ *
+ */
+class PropertyTypeClassifier {
+
+    private static final String PROPERTY_TYPE = "javafx.beans.property.Property"; // NOI18N
+
+    /** Value of {@link GeneratorOptions#INHERITED_FIELDS_FROM} including every superclass. */
+    static final String ALL_SUPERCLASSES = "*"; // NOI18N
+
+    /**
+     * Property handles found per classpath; weak keys let closed projects go.
+     * A classpath without JavaFx is not recorded, it may get it later.
+     */
+    private static final Map<ClasspathInfo, ElementHandle<TypeElement>> HANDLES = new WeakHashMap<>();
+
+    private final Types types;
+    private final TypeMirror propertyType;
+    private final Map<TypeElement, ExecutableElement> getMethods = new HashMap<>();
+
+    /**
+     * Creates a classifier for the given type model, {@code propertyType}
+     * being the erasure of {@code javafx.beans.property.Property}.
+     * {@link #forCompilation} is the way to get one in the IDE.
+     */
+    PropertyTypeClassifier(Types types, TypeMirror propertyType) {
+        this.types = types;
+        this.propertyType = propertyType;
+    }
+
+    /**
+     * Creates a classifier bound to the given compilation. The returned
+     * instance must not outlive it.
+     */
+    static PropertyTypeClassifier forCompilation(CompilationInfo info) {
+        return new PropertyTypeClassifier(info.getTypes(), resolveErasure(info, getPropertyHandle(info)));
+    }
+
+    /**
+     * Checks if the given type is a JavaFx property. Subclasses declared in
+     * the project are recognized as well.
+     */
+    boolean isSupportedProperty(TypeMirror type) {
+        if (propertyType == null || type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        return types.isSubtype(types.erasure(type), propertyType);
+    }
+
+    /**
+     * Collects the property fields the class at {@code classPath} declares,
+     * read from its members, followed by the ones inherited from the
+     * superclasses named by {@link GeneratorOptions#getInheritedFieldsFrom()}.
+     * Superclasses are not looked at unless that option is set.
+     */
+    List<PropertyField> getPropertyFields(CompilationInfo info, TreePath classPath) {
+        List<PropertyField> fieldList = new ArrayList<>();
+        TypeElement typeElement = (TypeElement) info.getTrees().getElement(classPath);
+        if (propertyType == null || typeElement == null) {
+            return fieldList;
+        }
+        Elements elements = info.getElements();
+        Set<String> names = new HashSet<>();
+        for (Tree member : ((ClassTree) classPath.getLeaf()).getMembers()) {
+            if (member.getKind() != Tree.Kind.VARIABLE) {
+                continue;
+            }
+            Element element = info.getTrees().getElement(new TreePath(classPath, member));
+            if (element == null || element.getKind() != ElementKind.FIELD) {
+                continue;
+            }
+            names.add(element.getSimpleName().toString());
+            addPropertyField(elements, fieldList, (VariableElement) element, element.asType());
+        }
+
+        Set<String> inheritedFrom = getInheritedFieldsFrom();
+        if (inheritedFrom.isEmpty()) {
+            return fieldList;
+        }
+        DeclaredType classType = (DeclaredType) typeElement.asType();
+        for (TypeElement superclass = getSuperclass(typeElement); superclass != null;
+                superclass = getSuperclass(superclass)) {
+            if (!isIncluded(inheritedFrom, superclass)) {
+                continue;
+            }
+            for (VariableElement field : ElementFilter.fieldsIn(superclass.getEnclosedElements())) {
+                if (isInherited(elements, field, typeElement) && names.add(field.getSimpleName().toString())) {
+                    addPropertyField(elements, fieldList, field, types.asMemberOf(classType, field));
+                }
+            }
+        }
+        return fieldList;
+    }
+
+    private void addPropertyField(Elements elements, List<PropertyField> fieldList,
+            VariableElement field, TypeMirror fieldType) {
+        if (isSupportedProperty(fieldType)) {
+            fieldList.add(PropertyField.create(field, fieldType, getValueType(elements, (DeclaredType) fieldType)));
+        }
+    }
+
+    /**
+     * The type returned by the {@code get()} method of the property as seen
+     * from the given parameterization, i.e. {@code int} for an
+     * {@code IntegerProperty} and {@code ObservableList<Order>} for a
+     * {@code ListProperty<Order>}; {@code null} if there is no such method.
+     */
+    TypeMirror getValueType(Elements elements, DeclaredType fieldType) {
+        TypeElement element = (TypeElement) fieldType.asElement();
+        ExecutableElement getMethod;
+        if (getMethods.containsKey(element)) {
+            getMethod = getMethods.get(element);
+        } else {
+            getMethod = findGetMethod(elements, element);
+            getMethods.put(element, getMethod);
+        }
+        if (getMethod == null) {
+            return null;
+        }
+        return ((ExecutableType) types.asMemberOf(fieldType, getMethod)).getReturnType();
+    }
+
+    private static ExecutableElement findGetMethod(Elements elements, TypeElement element) {
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(element))) {
+            if (method.getSimpleName().contentEquals("get") // NOI18N
+                    && method.getParameters().isEmpty()
+                    && !method.getModifiers().contains(Modifier.STATIC)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Quick check used to decide if the generator should be offered at all:
+     * stops at the first property field found in the class or in the
+     * superclasses {@link #getPropertyFields} would include, without building
+     * the full member list.
+     */
+    boolean hasPropertyFields(TypeElement typeElement) {
+        if (propertyType == null) {
+            return false;
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(typeElement.getEnclosedElements())) {
+            if (isSupportedProperty(field.asType())) {
+                return true;
+            }
+        }
+        Set<String> inheritedFrom = getInheritedFieldsFrom();
+        if (inheritedFrom.isEmpty()) {
+            return false;
+        }
+        for (TypeElement superclass = getSuperclass(typeElement); superclass != null;
+                superclass = getSuperclass(superclass)) {
+            if (!isIncluded(inheritedFrom, superclass)) {
+                continue;
+            }
+            for (VariableElement field : ElementFilter.fieldsIn(superclass.getEnclosedElements())) {
+                if (!field.getModifiers().contains(Modifier.PRIVATE) && isSupportedProperty(field.asType())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether {@link #getPropertyFields} reads the fields of a superclass of
+     * {@code typeElement} other than {@code Object}, so the result depends
+     * on the sources of other classes too.
+     */
+    static boolean readsSuperclasses(TypeElement typeElement) {
+        Set<String> inheritedFrom = getInheritedFieldsFrom();
+        if (inheritedFrom.isEmpty()) {
+            return false;
+        }
+        TypeMirror superclass = typeElement.getSuperclass();
+        while (superclass.getKind() == TypeKind.DECLARED) {
+            TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+            superclass = element.getSuperclass();
+            if (superclass.getKind() == TypeKind.DECLARED && isIncluded(inheritedFrom, element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TypeElement getSuperclass(TypeElement element) {
+        TypeMirror superclass = element.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED
+                ? (TypeElement) types.asElement(superclass)
+                : null;
+    }
+
+    /** Private fields and package private fields of another package are not inherited. */
+    private static boolean isInherited(Elements elements, VariableElement field, TypeElement subclass) {
+        Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        return modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.PROTECTED)
+                || elements.getPackageOf(field).equals(elements.getPackageOf(subclass));
+    }
+
+    private static boolean isIncluded(Set<String> inheritedFrom, TypeElement superclass) {
+        return inheritedFrom.contains(ALL_SUPERCLASSES)
+                || inheritedFrom.contains(superclass.getQualifiedName().toString());
+    }
+
+    private static Set<String> getInheritedFieldsFrom() {
+        Set<String> names = new HashSet<>();
+        for (String name : GeneratorOptions.getInheritedFieldsFrom().split(",")) { // NOI18N
+            if (!name.trim().isEmpty()) {
+                names.add(name.trim());
+            }
+        }
+        return names;
+    }
+
+    private static TypeMirror resolveErasure(CompilationInfo info, ElementHandle<TypeElement> handle) {
+        if (handle == null) {
+            return null;
+        }
+        TypeElement element = handle.resolve(info);
+        return element == null ? null : info.getTypes().erasure(element.asType());
+    }
+
+    private static ElementHandle<TypeElement> getPropertyHandle(CompilationInfo info) {
+        ClasspathInfo cpInfo = info.getClasspathInfo();
+        synchronized (HANDLES) {
+            ElementHandle<TypeElement> handle = HANDLES.get(cpInfo);
+            if (handle == null) {
+                TypeElement element = info.getElements().getTypeElement(PROPERTY_TYPE);
+                if (element != null) {
+                    handle = ElementHandle.create(element);
+                    HANDLES.put(cpInfo, handle);
+                }
+            }
+            return handle;
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.lynden.netbeans.javafx.StageTimer.Stage;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Rolling window of the most recent durations of each stage, summarized as
+ * median and 99th percentile. Only filled when
+ * {@link GeneratorOptions#isTimingSummary()} is enabled.
+ *
+ */
+final class StageStatistics {
+
+    private static final Logger LOG = Logger.getLogger(StageStatistics.class.getName());
+
+    /** Number of samples kept per stage. */
+    static final int WINDOW = 256;
+
+    private static final Map<Stage, Window> WINDOWS = new EnumMap<>(Stage.class);
+
+    private StageStatistics() {
+    }
+
+    static synchronized void record(Stage stage, long nanos) {
+        Window window = WINDOWS.get(stage);
+        if (window == null) {
+            window = new Window();
+            WINDOWS.put(stage, window);
+        }
+        window.add(nanos);
+    }
+
+    /**
+     * @return one line per stage with its sample count, p50 and p99 in
+     * milliseconds, or an empty string if nothing was recorded
+     */
+    static synchronized String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<Stage, Window> entry : WINDOWS.entrySet()) {
+            long[] sorted = entry.getValue().sorted();
+            sb.append(String.format("%-8s n=%-4d p50=%8.2f ms p99=%8.2f ms%n", // NOI18N
+                    entry.getKey(), sorted.length,
+                    percentile(sorted, 50) / 1e6, percentile(sorted, 99) / 1e6));
+        }
+        return sb.toString();
+    }
+
+    /** Logs the {@link #summary()} at {@code INFO} if the summary is enabled. */
+    static void logSummary() {
+        if (GeneratorOptions.isTimingSummary()) {
+            LOG.log(Level.INFO, "Accessor generation timings:\n{0}", summary()); // NOI18N
+        }
+    }
+
+    static synchronized void clear() {
+        WINDOWS.clear();
+    }
+
+    /** Nearest rank percentile of an ascending array. */
+    private static long percentile(long[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static class Window {
+
+        private final long[] samples = new long[WINDOW];
+        private int next;
+        private int size;
+
+        void add(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % WINDOW;
+            if (size < WINDOW) {
+                size++;
+            }
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(samples, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+}
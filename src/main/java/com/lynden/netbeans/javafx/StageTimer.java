@@ -0,0 +1,121 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Measures one stage of a generation run. Every measurement is logged at
+ * {@code FINE}, emitted as a {@link GenerationEvent} when the JVM supports
+ * Flight Recorder and, if enabled in {@link GeneratorOptions}, added to the
+ * {@link StageStatistics}.
+ * <pre>
+ * StageTimer timer = StageTimer.start(Stage.ANALYZE, className);
+ * try {
+ *     ...
+ * } finally {
+ *     timer.properties(fields.size()).end();
+ * }
+ * </pre>
+ *
+ */
+final class StageTimer {
+
+    private static final Logger LOG = Logger.getLogger(StageTimer.class.getName());
+
+    /** Flight Recorder is only available from JDK 8u262 on. */
+    private static final boolean JFR_AVAILABLE = isJfrAvailable();
+
+    /** The stages of a generation run, in the order they are run. */
+    enum Stage {
+        /** Parsing and resolution of the source, {@code toPhase}. */
+        PARSE,
+        /** Collection of the property fields. */
+        ANALYZE,
+        /** Building the accessors and merging them into the members. */
+        MERGE,
+        /** Rewriting the class tree and its imports. */
+        REWRITE,
+        /** Applying the modification result to the document. */
+        COMMIT
+    }
+
+    private final Stage stage;
+    private final String className;
+    private final long start;
+    private final Object event;
+    private int memberCount = -1;
+    private int propertyCount = -1;
+
+    private StageTimer(Stage stage, String className) {
+        this.stage = stage;
+        this.className = className;
+        this.event = JFR_AVAILABLE ? GenerationEvent.start() : null;
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * @param className the class being generated, or the file name for the
+     * stages that are not bound to a single class
+     */
+    static StageTimer start(Stage stage, String className) {
+        return new StageTimer(stage, className);
+    }
+
+    StageTimer members(int value) {
+        this.memberCount = value;
+        return this;
+    }
+
+    StageTimer properties(int value) {
+        this.propertyCount = value;
+        return this;
+    }
+
+    void end() {
+        long elapsed = System.nanoTime() - start;
+        if (event != null) {
+            GenerationEvent.finish(event, stage.name(), className, memberCount, propertyCount);
+        }
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.log(Level.FINE, "{0} {1}: {2} us, {3} members, {4} properties", // NOI18N
+                    new Object[]{stage, className, elapsed / 1000L, memberCount, propertyCount});
+        }
+        if (GeneratorOptions.isTimingSummary()) {
+            StageStatistics.record(stage, elapsed);
+        }
+    }
+
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, StageTimer.class.getClassLoader()); // NOI18N
+            return true;
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+
+}
@@ -25,18 +25,28 @@ SOFTWARE.
 package com.lynden.netbeans.javafx;
 
 import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.util.SourcePositions;
 import com.sun.source.util.TreePath;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 import javax.swing.text.Document;
-import org.netbeans.api.java.source.WorkingCopy;
+import org.netbeans.api.java.source.CompilationInfo;
 import org.netbeans.editor.GuardedDocument;
 
 /**
  *
  */
 class TreeHelper {
+
+    /** Kinds of the trees that may declare member classes. */
+    private static final Set<Tree.Kind> CLASS_KINDS = EnumSet.of(Tree.Kind.CLASS,
+            Tree.Kind.INTERFACE, Tree.Kind.ENUM, Tree.Kind.ANNOTATION_TYPE);
+
     /**
      * Search up the hierarchy of elements for one of the given kind.
      *
@@ -60,37 +70,54 @@ class TreeHelper {
     /**
      * Find the index of the current class member.
      *
-     * @param wc
+     * @param info
      * @param classTree
      * @param offset
      * @return
      */
-    static int findClassMemberIndex(WorkingCopy wc,
+    static int findClassMemberIndex(CompilationInfo info,
             ClassTree classTree,
             int offset) {
 
-        int index = 0;
-        SourcePositions sp = wc.getTrees().getSourcePositions();
+        SourcePositions sp = info.getTrees().getSourcePositions();
         GuardedDocument gdoc = null;
         try {
-            Document doc = wc.getDocument();
+            Document doc = info.getDocument();
             if (doc != null && doc instanceof GuardedDocument) {
                 gdoc = (GuardedDocument) doc;
             }
         } catch (IOException ioe) {
         }
+        return findClassMemberIndex(info.getCompilationUnit(), sp, gdoc, classTree, offset);
+    }
 
+    /**
+     * Find the index of the current class member.
+     *
+     * @param cu the compilation unit containing the class
+     * @param sp the source positions of the compilation unit
+     * @param gdoc the document, if it has guarded blocks; may be {@code null}
+     * @param classTree
+     * @param offset
+     * @return
+     */
+    static int findClassMemberIndex(CompilationUnitTree cu,
+            SourcePositions sp,
+            GuardedDocument gdoc,
+            ClassTree classTree,
+            int offset) {
+
+        int index = 0;
         Tree lastMember = null;
         for (Tree tree : classTree.getMembers()) {
-            if (offset <= sp.getStartPosition(wc.getCompilationUnit(), tree)) {
+            if (offset <= sp.getStartPosition(cu, tree)) {
                 if (gdoc == null) {
                     break;
                 }
-                int pos = (int) (lastMember != null ? sp.getEndPosition(wc.
-                        getCompilationUnit(), lastMember) : sp.getStartPosition(
-                                wc.getCompilationUnit(), classTree));
+                int pos = (int) (lastMember != null ? sp.getEndPosition(cu, lastMember)
+                        : sp.getStartPosition(cu, classTree));
                 pos = gdoc.getGuardedBlockChain().adjustToBlockEnd(pos);
-                if (pos <= sp.getStartPosition(wc.getCompilationUnit(), tree)) {
+                if (pos <= sp.getStartPosition(cu, tree)) {
                     break;
                 }
             }
@@ -100,4 +127,30 @@ class TreeHelper {
         return index;
     }
 
+    /**
+     * Collects the classes of the compilation unit, top-level and nested at
+     * any depth, outer classes first. Local and anonymous classes are not
+     * included.
+     */
+    static List<TreePath> getClassPaths(CompilationUnitTree cu) {
+        List<TreePath> paths = new ArrayList<>();
+        TreePath cuPath = new TreePath(cu);
+        for (Tree typeDecl : cu.getTypeDecls()) {
+            addClassPaths(new TreePath(cuPath, typeDecl), paths);
+        }
+        return paths;
+    }
+
+    private static void addClassPaths(TreePath path, List<TreePath> paths) {
+        if (!CLASS_KINDS.contains(path.getLeaf().getKind())) {
+            return;
+        }
+        if (path.getLeaf().getKind() == Tree.Kind.CLASS) {
+            paths.add(path);
+        }
+        for (Tree member : ((ClassTree) path.getLeaf()).getMembers()) {
+            addClassPaths(new TreePath(path, member), paths);
+        }
+    }
+
 }
@@ -0,0 +1,204 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.util.JavacTask;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.lang.model.element.TypeElement;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compiles the members generated for a bean with list, set and map
+ * properties, and runs them against a stub of {@code FXCollections} which,
+ * like the real one, copies into an observable list but wraps the given set
+ * or map.
+ *
+ */
+public class BeanSnapshotTest {
+
+    private static final String FX_COLLECTIONS
+            = "package javafx.collections;\n" // NOI18N
+            + "import java.util.*;\n" // NOI18N
+            + "public final class FXCollections {\n" // NOI18N
+            + "    public static <E> ObservableList<E> observableArrayList(Collection<? extends E> c) {\n" // NOI18N
+            + "        ListImpl<E> list = new ListImpl<>();\n" // NOI18N
+            + "        list.addAll(c);\n" // NOI18N
+            + "        return list;\n" // NOI18N
+            + "    }\n" // NOI18N
+            + "    public static <E> ObservableSet<E> observableSet(Set<E> set) {\n" // NOI18N
+            + "        return new SetWrapper<>(set);\n" // NOI18N
+            + "    }\n" // NOI18N
+            + "    public static <K, V> ObservableMap<K, V> observableMap(Map<K, V> map) {\n" // NOI18N
+            + "        return new MapWrapper<>(map);\n" // NOI18N
+            + "    }\n" // NOI18N
+            + "    static final class ListImpl<E> extends ArrayList<E> implements ObservableList<E> {\n" // NOI18N
+            + "    }\n" // NOI18N
+            + "    static final class SetWrapper<E> extends AbstractSet<E> implements ObservableSet<E> {\n" // NOI18N
+            + "        private final Set<E> set;\n" // NOI18N
+            + "        SetWrapper(Set<E> set) { this.set = set; }\n" // NOI18N
+            + "        public Iterator<E> iterator() { return set.iterator(); }\n" // NOI18N
+            + "        public int size() { return set.size(); }\n" // NOI18N
+            + "        public boolean add(E e) { return set.add(e); }\n" // NOI18N
+            + "    }\n" // NOI18N
+            + "    static final class MapWrapper<K, V> extends AbstractMap<K, V> implements ObservableMap<K, V> {\n" // NOI18N
+            + "        private final Map<K, V> map;\n" // NOI18N
+            + "        MapWrapper(Map<K, V> map) { this.map = map; }\n" // NOI18N
+            + "        public Set<Map.Entry<K, V>> entrySet() { return map.entrySet(); }\n" // NOI18N
+            + "        public V put(K key, V value) { return map.put(key, value); }\n" // NOI18N
+            + "    }\n" // NOI18N
+            + "}\n"; // NOI18N
+
+    private static final String OBSERVABLE_SET = "package javafx.collections;\n" // NOI18N
+            + "public interface ObservableSet<E> extends java.util.Set<E> {\n}\n"; // NOI18N
+    private static final String OBSERVABLE_MAP = "package javafx.collections;\n" // NOI18N
+            + "public interface ObservableMap<K, V> extends java.util.Map<K, V> {\n}\n"; // NOI18N
+    private static final String OBSERVABLE_LIST = "package javafx.collections;\n" // NOI18N
+            + "public interface ObservableList<E> extends java.util.List<E> {\n}\n"; // NOI18N
+
+    /** Changes every collection of the bean once a snapshot was applied. */
+    private static final String CHECK
+            = "public static void check() {\n" // NOI18N
+            + "    Bean bean = new Bean();\n" // NOI18N
+            + "    bean.setNames(FXCollections.observableArrayList(Arrays.asList(\"a\")));\n" // NOI18N
+            + "    bean.setTags(FXCollections.observableSet(new HashSet<>(Arrays.asList(\"a\"))));\n" // NOI18N
+            + "    bean.setCounts(FXCollections.observableMap(new HashMap<>(Collections.singletonMap(\"a\", 1))));\n" // NOI18N
+            + "    Snapshot snapshot = bean.snapshot();\n" // NOI18N
+            + "    bean.apply(snapshot);\n" // NOI18N
+            + "    bean.getNames().add(\"b\");\n" // NOI18N
+            + "    bean.getTags().add(\"b\");\n" // NOI18N
+            + "    bean.getCounts().put(\"b\", 2);\n" // NOI18N
+            + "    if (snapshot.names().size() != 1 || snapshot.tags().size() != 1 || snapshot.counts().size() != 1) {\n" // NOI18N
+            + "        throw new AssertionError(\"the snapshot shares a collection with the bean\");\n" // NOI18N
+            + "    }\n" // NOI18N
+            + "}\n"; // NOI18N
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void collectionsCanBeChangedAfterApply() throws Exception {
+        List<PropertyField> fields = Arrays.asList(
+                new PropertyField(null, "names", // NOI18N
+                        "javafx.beans.property.ListProperty<java.lang.String>", // NOI18N
+                        "javafx.collections.ObservableList<java.lang.String>"), // NOI18N
+                new PropertyField(null, "tags", // NOI18N
+                        "javafx.beans.property.SetProperty<java.lang.String>", // NOI18N
+                        "javafx.collections.ObservableSet<java.lang.String>"), // NOI18N
+                new PropertyField(null, "counts", // NOI18N
+                        "javafx.beans.property.MapProperty<java.lang.String,java.lang.Integer>", // NOI18N
+                        "javafx.collections.ObservableMap<java.lang.String,java.lang.Integer>")); // NOI18N
+
+        JavacTask task = createTask(null, beanSource("", "")); // NOI18N
+        task.analyze();
+        TypeElement bean = task.getElements().getTypeElement("bench.Bean"); // NOI18N
+        BeanSnapshot snapshot = new BeanSnapshot(null, bean, fields);
+
+        StringBuilder imports = new StringBuilder();
+        for (String name : snapshot.getImports()) {
+            imports.append("import ").append(name).append(";\n"); // NOI18N
+        }
+        StringBuilder members = new StringBuilder(CHECK);
+        for (GeneratedMembers.Member member : snapshot.getExpectedMembers().values()) {
+            members.append(member.text).append('\n');
+        }
+
+        File classes = folder.newFolder("classes"); // NOI18N
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        task = createTask(diagnostics, beanSource(imports.toString(), members.toString()),
+                "-d", classes.getPath()); // NOI18N
+        assertTrue(diagnostics.getDiagnostics().toString(), task.call());
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classes.toURI().toURL()})) {
+            loader.loadClass("bench.Bean").getMethod("check").invoke(null); // NOI18N
+        } catch (InvocationTargetException ex) {
+            throw new AssertionError("changing a collection after apply() failed", ex.getCause()); // NOI18N
+        }
+    }
+
+    private static JavacTask createTask(DiagnosticCollector<JavaFileObject> diagnostics, String bean,
+            String... options) throws IOException {
+        List<String> arguments = new ArrayList<>(Arrays.asList(options));
+        arguments.add("-proc:none"); // NOI18N
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        return (JavacTask) compiler.getTask(null, null, diagnostics, arguments, null, Arrays.asList(
+                new StringSource("javafx/collections/FXCollections", FX_COLLECTIONS), // NOI18N
+                new StringSource("javafx/collections/ObservableList", OBSERVABLE_LIST), // NOI18N
+                new StringSource("javafx/collections/ObservableSet", OBSERVABLE_SET), // NOI18N
+                new StringSource("javafx/collections/ObservableMap", OBSERVABLE_MAP), // NOI18N
+                new StringSource("bench/Bean", bean))); // NOI18N
+    }
+
+    private static String beanSource(String imports, String members) {
+        return "package bench;\n\n" // NOI18N
+                + "import java.util.*;\n" // NOI18N
+                + "import javafx.collections.*;\n" // NOI18N
+                + imports
+                + "\npublic class Bean {\n" // NOI18N
+                + "    private ObservableList<String> names;\n" // NOI18N
+                + "    private ObservableSet<String> tags;\n" // NOI18N
+                + "    private ObservableMap<String, Integer> counts;\n" // NOI18N
+                + "    public final ObservableList<String> getNames() { return names; }\n" // NOI18N
+                + "    public final void setNames(ObservableList<String> value) { names = value; }\n" // NOI18N
+                + "    public final ObservableSet<String> getTags() { return tags; }\n" // NOI18N
+                + "    public final void setTags(ObservableSet<String> value) { tags = value; }\n" // NOI18N
+                + "    public final ObservableMap<String, Integer> getCounts() { return counts; }\n" // NOI18N
+                + "    public final void setCounts(ObservableMap<String, Integer> value) { counts = value; }\n" // NOI18N
+                + members
+                + "}\n"; // NOI18N
+    }
+
+    private static class StringSource extends SimpleJavaFileObject {
+
+        private final String source;
+
+        StringSource(String path, String source) {
+            super(URI.create("string:///" + path + ".java"), JavaFileObject.Kind.SOURCE); // NOI18N
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.util.JavacTask;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks which members of a removed field the generated blocks remove: the
+ * ones they generated, but never a hand written member following the same
+ * naming pattern.
+ *
+ */
+public class GeneratedMembersTest {
+
+    private static final PropertyField PRICE = new PropertyField(null, "price", // NOI18N
+            "javafx.beans.property.DoubleProperty", "double"); // NOI18N
+    private static final PropertyField NAME = new PropertyField(null, "name", // NOI18N
+            "javafx.beans.property.StringProperty", "java.lang.String"); // NOI18N
+
+    private static TypeElement bean;
+
+    @BeforeClass
+    public static void compile() throws IOException {
+        JavacTask task = (JavacTask) ToolProvider.getSystemJavaCompiler().getTask(null, null, null,
+                Collections.singletonList("-proc:none"), null, // NOI18N
+                Collections.singletonList(new SimpleJavaFileObject(
+                        URI.create("string:///bench/Person.java"), JavaFileObject.Kind.SOURCE) { // NOI18N
+                    @Override
+                    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                        return "package bench;\npublic class Person {\n}\n"; // NOI18N
+                    }
+                }));
+        task.analyze();
+        bean = task.getElements().getTypeElement("bench.Person"); // NOI18N
+    }
+
+    @Test
+    public void asyncMembersOfRemovedFieldsAreLeftovers() {
+        AsyncSetters before = new AsyncSetters(null, bean, Arrays.asList(PRICE, NAME));
+        AsyncSetters after = new AsyncSetters(null, bean, Collections.singletonList(NAME));
+        assertLeftovers(before, after, "priceAsyncValue", "setPriceAsync"); // NOI18N
+    }
+
+    @Test
+    public void handWrittenAsyncMembersAreKept() {
+        AsyncSetters setters = new AsyncSetters(null, bean, Collections.singletonList(NAME));
+        assertFalse(setters.isLeftover("setConnectionAsync", normalize( // NOI18N
+                "public final void setConnectionAsync(Config config) {\n" // NOI18N
+                + "    executor.submit(() -> connect(config));\n}"))); // NOI18N
+        assertFalse(setters.isLeftover("lastAsyncValue", normalize( // NOI18N
+                "private final AtomicReference<String> lastAsyncValue = new AtomicReference<>();"))); // NOI18N
+        // same body, but the slot doesn't belong to the setter
+        assertFalse(setters.isLeftover("setPriceAsync", normalize( // NOI18N
+                "public final void setPriceAsync(double value) {\n" // NOI18N
+                + "    costAsyncValue.set(value);\n    scheduleAsyncDrain();\n}"))); // NOI18N
+    }
+
+    @Test
+    public void factoriesOfRemovedFieldsAreLeftovers() {
+        CellValueFactories before = new CellValueFactories(null, bean, Arrays.asList(PRICE, NAME));
+        CellValueFactories after = new CellValueFactories(null, bean, Collections.singletonList(NAME));
+        assertLeftovers(before, after, "priceCellValueFactory"); // NOI18N
+    }
+
+    @Test
+    public void handWrittenFactoriesAreKept() {
+        CellValueFactories factories = new CellValueFactories(null, bean, Collections.singletonList(NAME));
+        assertFalse(factories.isLeftover("ageCellValueFactory", normalize( // NOI18N
+                "public static Callback<TableColumn.CellDataFeatures<Person, Number>, ObservableValue<Number>> " // NOI18N
+                + "ageCellValueFactory() {\n" // NOI18N
+                + "    return features -> Bindings.createIntegerBinding(() -> features.getValue().getAge());\n}"))); // NOI18N
+    }
+
+    /** The members {@code before} generates for {@code names} must be leftovers for {@code after}. */
+    private static void assertLeftovers(GeneratedMembers before, GeneratedMembers after, String... names) {
+        for (String name : names) {
+            GeneratedMembers.Member member = before.getExpectedMembers().get(name);
+            assertNotNull(name, member);
+            assertFalse(name, after.getExpectedMembers().containsKey(name));
+            assertTrue(name, after.isLeftover(name, normalize(member.text)));
+        }
+    }
+
+    private static String normalize(String source) {
+        return AccessorConventions.stripWhitespace(source);
+    }
+
+}
@@ -0,0 +1,235 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that deciding whether the generator is offered, as
+ * {@link JavaFxBeanHelper.Factory#create} does, costs at most one subtype
+ * check per field of a large class and stops at the first property field.
+ * The type model calls are counted rather than timed; a run slower than
+ * {@link JavaFxBeanHelper.Factory#CREATE_BUDGET_MILLIS} is only logged.
+ * The classes are compiled with the javac of the running JDK against a stub
+ * of the JavaFx property types, so neither the IDE nor JavaFx is needed.
+ *
+ */
+public class JavaFxBeanHelperTest {
+
+    private static final Logger LOG = Logger.getLogger(JavaFxBeanHelperTest.class.getName());
+
+    /** Members of each synthetic bean, half of them fields. */
+    private static final int MEMBERS = 20000;
+
+    /** Timed runs of each check, the fastest one counts. */
+    private static final int RUNS = 5;
+
+    private static Trees trees;
+    private static JavacTask task;
+    private static TypeMirror propertyType;
+
+    @BeforeClass
+    public static void compile() throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        task = (JavacTask) compiler.getTask(null, null, null,
+                Collections.singletonList("-proc:none"), null, Arrays.asList( // NOI18N
+                        new StringSource("javafx/beans/property/Property", // NOI18N
+                                "package javafx.beans.property;\n" // NOI18N
+                                + "public interface Property<T> {\n    T getValue();\n}\n"), // NOI18N
+                        new StringSource("javafx/beans/property/StringProperty", // NOI18N
+                                "package javafx.beans.property;\n" // NOI18N
+                                + "public abstract class StringProperty implements Property<String> {\n}\n"), // NOI18N
+                        new StringSource("bench/FirstPropertyBean", source("FirstPropertyBean", 0)), // NOI18N
+                        new StringSource("bench/LastPropertyBean", source("LastPropertyBean", MEMBERS / 2)), // NOI18N
+                        new StringSource("bench/PlainBean", source("PlainBean", -1)))); // NOI18N
+        task.analyze();
+        trees = Trees.instance(task);
+        TypeMirror property = task.getElements().getTypeElement("javafx.beans.property.Property").asType(); // NOI18N
+        propertyType = task.getTypes().erasure(property);
+    }
+
+    @Test
+    public void offeredAfterOneCheckPerField() {
+        TreePath path = getLastMemberPath("bench.LastPropertyBean"); // NOI18N
+        CountingTypes types = new CountingTypes(task.getTypes());
+        assertTrue(JavaFxBeanHelper.Factory.isApplicable(trees, path, types.classifier()));
+        types.assertSubtypeChecks(MEMBERS / 2 + 1);
+        logIfOverBudget(path);
+    }
+
+    @Test
+    public void offeredAtTheFirstPropertyField() {
+        TreePath path = getLastMemberPath("bench.FirstPropertyBean"); // NOI18N
+        CountingTypes types = new CountingTypes(task.getTypes());
+        assertTrue(JavaFxBeanHelper.Factory.isApplicable(trees, path, types.classifier()));
+        types.assertSubtypeChecks(1);
+    }
+
+    @Test
+    public void notOfferedAfterOneCheckPerField() {
+        TreePath path = getLastMemberPath("bench.PlainBean"); // NOI18N
+        CountingTypes types = new CountingTypes(task.getTypes());
+        assertFalse(JavaFxBeanHelper.Factory.isApplicable(trees, path, types.classifier()));
+        types.assertSubtypeChecks(MEMBERS / 2);
+        logIfOverBudget(path);
+    }
+
+    /** Wall clock time depends on the machine, so it is only reported. */
+    private static void logIfOverBudget(TreePath path) {
+        PropertyTypeClassifier classifier = new PropertyTypeClassifier(task.getTypes(), propertyType);
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            JavaFxBeanHelper.Factory.isApplicable(trees, path, classifier);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(fastest);
+        if (millis > JavaFxBeanHelper.Factory.CREATE_BUDGET_MILLIS) {
+            LOG.log(Level.WARNING, "took {0} ms on {1} members, budget is {2} ms", // NOI18N
+                    new Object[]{millis, MEMBERS, JavaFxBeanHelper.Factory.CREATE_BUDGET_MILLIS});
+        }
+    }
+
+    /** The path of the last member of the class, standing for the caret. */
+    private static TreePath getLastMemberPath(String className) {
+        TypeElement element = task.getElements().getTypeElement(className);
+        TreePath classPath = trees.getPath(element);
+        List<? extends Tree> members = ((ClassTree) classPath.getLeaf()).getMembers();
+        return new TreePath(classPath, members.get(members.size() - 1));
+    }
+
+    /**
+     * A bean of {@link #MEMBERS} plain fields and methods, with one property
+     * field declared after {@code propertyIndex} plain fields, none if it is
+     * negative. The plain fields have a declared type, so each one takes a
+     * subtype check.
+     */
+    private static String source(String className, int propertyIndex) {
+        StringBuilder sb = new StringBuilder(MEMBERS * 48);
+        sb.append("package bench;\n\n") // NOI18N
+                .append("import javafx.beans.property.StringProperty;\n\n") // NOI18N
+                .append("public class ").append(className).append(" {\n"); // NOI18N
+        for (int i = 0; i < MEMBERS / 2; i++) {
+            if (i == propertyIndex) {
+                sb.append("    private StringProperty name;\n"); // NOI18N
+            }
+            sb.append("    private String value").append(i).append(";\n") // NOI18N
+                    .append("    public String method").append(i).append("() {\n") // NOI18N
+                    .append("        return value").append(i).append(";\n    }\n"); // NOI18N
+        }
+        if (propertyIndex >= MEMBERS / 2) {
+            sb.append("    private StringProperty name;\n"); // NOI18N
+        }
+        return sb.append("}\n").toString(); // NOI18N
+    }
+
+    /**
+     * Counts the calls to the type model a classifier makes, by method name.
+     * A subtype check per field is the expected cost; member lookups like
+     * {@code asMemberOf} or {@code directSupertypes} must not happen at all.
+     */
+    private static class CountingTypes implements InvocationHandler {
+
+        private final Types types;
+        private final Map<String, Integer> calls = new HashMap<>();
+
+        CountingTypes(Types types) {
+            this.types = types;
+        }
+
+        PropertyTypeClassifier classifier() {
+            Types proxy = (Types) Proxy.newProxyInstance(Types.class.getClassLoader(),
+                    new Class<?>[]{Types.class}, this);
+            return new PropertyTypeClassifier(proxy, propertyType);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Integer count = calls.get(method.getName());
+            calls.put(method.getName(), count == null ? 1 : count + 1);
+            try {
+                return method.invoke(types, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+
+        void assertSubtypeChecks(int expected) {
+            assertEquals(Integer.valueOf(expected), calls.get("isSubtype")); // NOI18N
+            Set<String> others = new HashSet<>(calls.keySet());
+            others.removeAll(Arrays.asList("isSubtype", "erasure")); // NOI18N
+            assertEquals(Collections.emptySet(), others);
+        }
+    }
+
+    private static class StringSource extends SimpleJavaFileObject {
+
+        private final String source;
+
+        StringSource(String path, String source) {
+            super(URI.create("string:///" + path + ".java"), JavaFileObject.Kind.SOURCE); // NOI18N
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+/**
+The MIT License (MIT)
+
+Copyright (c) 2015 Lynden, Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+**/
+
+package com.lynden.netbeans.javafx;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.JavacTask;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks which uses of a boxed property field within its file prevent the
+ * conversion to a primitive property. The sources are only parsed, like the
+ * method bodies the conversion looks at.
+ *
+ */
+public class PrimitivePropertyTest {
+
+    private static final Set<String> FIELDS = new HashSet<>(Arrays.asList("count", "size")); // NOI18N
+
+    private static final String ACCESSORS
+            = "    public final void setCount(Integer value) { count.set(value); }\n" // NOI18N
+            + "    public final Integer getCount() { return count.get(); }\n" // NOI18N
+            + "    public final ObjectProperty<Integer> countProperty() { return count; }\n"; // NOI18N
+
+    @Test
+    public void rewrittenCallsAndAccessorsAreConverted() throws IOException {
+        assertEquals(Collections.emptySet(), findOtherUses(
+                "    void reset() { count.setValue(count.getValue() + this.size.getValue()); }\n")); // NOI18N
+    }
+
+    @Test
+    public void otherUsesOfTheFieldAreRefused() throws IOException {
+        assertEquals(Collections.singleton("count"), findOtherUses( // NOI18N
+                "    void listen(ChangeListener<Integer> listener) { count.addListener(listener); }\n")); // NOI18N
+        assertEquals(Collections.singleton("count"), findOtherUses( // NOI18N
+                "    boolean same(Bean other) { return other.count.getValue().equals(size.getValue()); }\n")); // NOI18N
+    }
+
+    @Test
+    public void usesOfTheAccessorsAreRefused() throws IOException {
+        assertEquals(Collections.singleton("count"), findOtherUses( // NOI18N
+                "    boolean unset() { return getCount() == null; }\n")); // NOI18N
+        assertEquals(Collections.singleton("count"), findOtherUses( // NOI18N
+                "    void listen(ChangeListener<Integer> listener) { countProperty().addListener(listener); }\n")); // NOI18N
+    }
+
+    @Test
+    public void usesFromOtherClassesOfTheFileAreRefused() throws IOException {
+        assertEquals(Collections.singleton("size"), findOtherUses("", // NOI18N
+                "class Helper {\n    void clear(Bean bean) { bean.setSize(null); }\n}\n")); // NOI18N
+    }
+
+    private static Set<String> findOtherUses(String members) throws IOException {
+        return findOtherUses(members, ""); // NOI18N
+    }
+
+    private static Set<String> findOtherUses(String members, String otherClasses) throws IOException {
+        final String source = "package bench;\n" // NOI18N
+                + "public class Bean {\n" // NOI18N
+                + "    private final ObjectProperty<Integer> count = new SimpleObjectProperty<>(this, \"count\", 0);\n" // NOI18N
+                + "    private final ObjectProperty<Long> size = new SimpleObjectProperty<>(this, \"size\", 0L);\n" // NOI18N
+                + ACCESSORS + members + "}\n" + otherClasses; // NOI18N
+        JavacTask task = (JavacTask) ToolProvider.getSystemJavaCompiler().getTask(null, null, null,
+                Collections.singletonList("-proc:none"), null, // NOI18N
+                Collections.singletonList(new SimpleJavaFileObject(
+                        URI.create("string:///bench/Bean.java"), JavaFileObject.Kind.SOURCE) { // NOI18N
+                    @Override
+                    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                        return source;
+                    }
+                }));
+        CompilationUnitTree compilationUnit = task.parse().iterator().next();
+        ClassTree classTree = (ClassTree) compilationUnit.getTypeDecls().get(0);
+        return PrimitiveProperty.findOtherUses(compilationUnit, classTree, FIELDS);
+    }
+
+}